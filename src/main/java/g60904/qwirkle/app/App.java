@@ -3,30 +3,70 @@ package g60904.qwirkle.app;
 import g60904.qwirkle.model.*;
 import g60904.qwirkle.view.View;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 public class App {
+    /**
+     * The file where the turns of the game are written down, so that it can be recovered after a crash.
+     */
+    private static final Path JOURNAL_FILE = Path.of("qwirkle.journal");
+    /**
+     * The file where the game is saved after each turn, which can be loaded like any saved game.
+     */
+    private static final Path AUTOSAVE_FILE = Path.of("qwirkle.autosave");
+    /**
+     * The archive where every finished game is kept for analysis.
+     */
+    private static final Path ARCHIVE_FILE = Path.of("qwirkle.archive");
     private static Game game;
+    private static MoveJournal journal;
+    private static AutoSaver autoSaver;
     /**
      * The main method of the Qwirkle application.
-     * It handles the game flow by displaying the welcome message, loading a saved game if requested,
-     * or creating a new game with player names if no saved game is available.
+     * It handles the game flow by displaying the welcome message, recovering the interrupted game or loading
+     * a saved game if requested, or creating a new game with player names if no saved game is available.
+     * Every turn is written down in a journal file, which is deleted when the game ends, and the game is saved
+     * after each turn to {@code qwirkle.autosave} by a thread of its own, so the turns never wait for the disk.
+     * A finished game is added to the archive of games.
+     * Each player can be a bot, played by the {@link GreedyStrategy}.
      * Then, it enters a loop where it displays the game state, asks for a command from the current player,
-     * and continues until the game is over. Finally, it displays the end-of-game message with the final scores.
+     * or lets the current bot play, and continues until the game is over. Finally, it displays the end-of-game message with the final scores.
      *
      * @param args command-line arguments (not used)
      */
     public static void main(String[] args) {
         View.displayWelcome();
-        if (!loadASavedGame()) {
+        if (!recoverAnInterruptedGame() && !loadASavedGame()) {
             List<String> playersNameList = View.askPlayerName();
             game = new Game(playersNameList);
+            for (int i = 0; i < playersNameList.size(); i++) {
+                if (View.playerIsABot(playersNameList.get(i))) {
+                    game.setStrategy(i, new GreedyStrategy());
+                }
+            }
         }
+        startJournal();
+        autoSaver = new AutoSaver(AUTOSAVE_FILE);
         do {
             View.display(new GridView(game.getGrid()));
-            View.display(game.getCurrentPlayerName(), game.getCurrentPlayerHand(), game.getCurrentPlayerScore());
-            askCommandFromCurrentPlayer();
+            var turns = game.getTurnCount();
+            if (game.isCurrentPlayerBot()) {
+                var name = game.getCurrentPlayerName();
+                View.displayBotMove(name, game.playBotTurn());
+            } else {
+                View.display(game.getCurrentPlayerName(), game.getCurrentPlayerHand(), game.getCurrentPlayerScore());
+                askCommandFromCurrentPlayer();
+            }
+            if (game.getTurnCount() != turns) {
+                autoSave();
+            }
         } while (!game.isOver());
+        endJournal();
+        endAutoSave();
+        archiveGame();
         View.displayEnd(game.getPlayersName(), game.getPlayersScore());
     }
     /**
@@ -48,8 +88,8 @@ public class App {
     }
     /**
      * Quits the game based on the player's decision.
-     * If the player wants to save the game, it prompts for the save file name and attempts to write the game state.
-     * If the saving process fails, it asks the question again.
+     * If the player wants to save the game, it asks for the save file and attempts to write the game state.
+     * If the saving process fails or no file is chosen, it asks the question again.
      * If the player doesn't want to save the game, it displays the end-of-game message and terminates the application.
      */
     private static void quit() {
@@ -57,7 +97,11 @@ public class App {
         do {
             if (View.playerWantToSaveAGame()) {
                 try {
-                    askQuestionAgain = !game.write();
+                    var path = View.askSaveFile();
+                    if (path != null) {
+                        game.save(path);
+                        askQuestionAgain = false;
+                    }
                 } catch (QwirkleException e) {
                     View.displayError(e.getMessage());
                 }
@@ -66,8 +110,93 @@ public class App {
                 View.displayEnd(game.getPlayersName(), game.getPlayersScore());
             }
         } while (askQuestionAgain);
+        endJournal();
+        endAutoSave();
         System.exit(0);
     }
+    /**
+     * Hands the game to the automatic saver, which saves it without making the turn wait.
+     * A save that failed is told to the player, and the game goes on.
+     */
+    private static void autoSave() {
+        try {
+            autoSaver.submit(game);
+        } catch (QwirkleException e) {
+            View.displayError(e.getMessage());
+        }
+    }
+    /**
+     * Waits for the last automatic save of the game and stops the saver.
+     */
+    private static void endAutoSave() {
+        if (autoSaver == null) {
+            return;
+        }
+        try {
+            autoSaver.close();
+        } catch (QwirkleException e) {
+            View.displayError(e.getMessage());
+        }
+        autoSaver = null;
+    }
+    /**
+     * Adds the finished game to the archive of games. The player is told if it could not be added.
+     */
+    private static void archiveGame() {
+        try (var archive = GameArchive.open(ARCHIVE_FILE)) {
+            archive.append(game);
+        } catch (QwirkleException e) {
+            View.displayError(e.getMessage());
+        }
+    }
+    /**
+     * Recovers the game that was interrupted, if its journal file is left and the player chooses to do so.
+     * The turns of the game recovered go on being written to its journal.
+     *
+     * @return true if the interrupted game was recovered, false otherwise
+     */
+    private static boolean recoverAnInterruptedGame() {
+        if (!Files.exists(JOURNAL_FILE) || !View.playerWantToRecoverAGame()) {
+            return false;
+        }
+        try {
+            journal = MoveJournal.open(JOURNAL_FILE);
+            game = journal.getGame();
+            return true;
+        } catch (QwirkleException e) {
+            View.displayError(e.getMessage());
+            return false;
+        }
+    }
+    /**
+     * Starts the journal of a new or loaded game. The game can still be played if the journal cannot be written,
+     * it will only not be recovered after a crash.
+     */
+    private static void startJournal() {
+        if (journal != null) {
+            return;
+        }
+        try {
+            journal = MoveJournal.create(JOURNAL_FILE, game);
+        } catch (QwirkleException e) {
+            View.displayError("The game could not be recovered after a crash. " + e.getMessage());
+        }
+    }
+    /**
+     * Closes the journal of the game and deletes its file, as the game was ended or saved by the player.
+     */
+    private static void endJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+            Files.deleteIfExists(JOURNAL_FILE);
+        } catch (QwirkleException | IOException e) {
+            View.displayError(e.getMessage());
+        }
+        journal = null;
+    }
     /**
      * Loads a saved game if the player chooses to do so.
      * It prompts the player to load a game and attempts to read the saved game file.
@@ -80,7 +209,10 @@ public class App {
         while (serializedGame == null) {
             if (View.playerWantToLoadAGame()) {
                 try {
-                    serializedGame = Game.getFromFile();
+                    var path = View.askLoadFile();
+                    if (path != null) {
+                        serializedGame = Game.load(path);
+                    }
                 } catch (QwirkleException e) {
                     View.displayError(e.getMessage());
                 }
@@ -89,7 +221,6 @@ public class App {
             }
         }
         game = serializedGame;
-        Game.setBagInstanceAfterSerialization(game);
         return true;
     }
     /**
@@ -158,7 +289,7 @@ public class App {
      * @param command the command entered by the player
      * @return true if the grid positions are valid, false otherwise
      */
-    private static boolean positionIsInGridTAP(String[] command) {
+    static boolean positionIsInGridTAP(String[] command) {
         try {
             for (int i = 1; i < command.length; i += 3) {
                 if (!positionIsInGrid(Integer.parseInt(command[i]), Integer.parseInt(command[i + 1]))) {
@@ -194,15 +325,16 @@ public class App {
         }
     }
     /**
-     * Checks if the position provided is within the grid boundaries.
+     * Checks if the position provided can be addressed by the grid.
+     * A move may reach beyond the displayed limits, so whether a tile can be placed
+     * there is left to the rules of the game.
      *
      * @param row the row coordinate
      * @param col the column coordinate
      * @return true if the position is within the grid, false otherwise
      */
     private static boolean positionIsInGrid(int row, int col) {
-        var gridSize = game.getGrid().getGRID_SIZE();
-        return row > 0 && row < gridSize && col > 0 && col < gridSize;
+        return Grid.isInside(row, col);
     }
     /**
      * Checks if the position provided in the command is correct.
@@ -0,0 +1,170 @@
+package g60904.qwirkle.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The AutoSaver class saves a game to a file after its turns, without making the game wait for the disk.
+ * <p>
+ * {@link #submit(Game)} only writes the game in the binary format of {@link GameCodec} to a new buffer in memory,
+ * which is a snapshot the game can no longer change, and leaves it to the thread of the saver. That thread is the
+ * only one to write the file: it writes the snapshot to a temporary file next to it, forces it to the disk and
+ * renames it over the file, so the file always holds a whole game, the one before or the one after. When the turns
+ * are played faster than the disk writes them, only the last snapshot waiting is written and the others are
+ * dropped, as the file only needs the last state of the game.
+ * <p>
+ * The file written can be loaded by {@link Game#load(Path)}. An error of the thread is thrown once, by the next
+ * {@link #submit(Game)}, {@link #flush()} or {@link #close()}, and the next snapshots are still written.
+ */
+public final class AutoSaver implements Closeable {
+    private final Path path;
+    private final Path temporaryPath;
+    private final ExecutorService writer;
+    private final AtomicReference<ByteBuffer> latest = new AtomicReference<>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile QwirkleException failure;
+
+    /**
+     * Constructs a saver that writes the games submitted to the given file.
+     *
+     * @param path the path of the file, created or replaced by each save
+     */
+    public AutoSaver(Path path) {
+        this.path = path;
+        this.temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        writer = Executors.newSingleThreadExecutor(task -> {
+            var thread = new Thread(task, "qwirkle-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes a snapshot of the game and leaves it to the thread of the saver, which writes it to the file
+     * unless a later snapshot replaces it before. The game can be played on as soon as this method returns.
+     *
+     * @param game the game to save
+     * @throws QwirkleException if the saver is closed, or a previous snapshot could not be written
+     */
+    public void submit(Game game) throws QwirkleException {
+        if (writer.isShutdown()) {
+            throw new QwirkleException("The game cannot be saved anymore, its saver is closed.");
+        }
+        var snapshot = GameCodec.encode(game).asReadOnlyBuffer();
+        if (latest.getAndSet(snapshot) == null) {
+            writer.execute(this::writeLatest);
+        } else {
+            dropped.incrementAndGet();
+        }
+        throwFailure();
+    }
+
+    /**
+     * Writes the last snapshot submitted to a temporary file and renames it over the file, from the thread
+     * of the saver. Nothing is written if that snapshot was already taken by a previous write.
+     */
+    private void writeLatest() {
+        var snapshot = latest.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            try (var channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (snapshot.hasRemaining()) {
+                    channel.write(snapshot);
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            written.incrementAndGet();
+        } catch (IOException e) {
+            failure = new QwirkleException("Error while saving the game automatically: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits until the last snapshot submitted is written to the file.
+     *
+     * @throws QwirkleException if a snapshot could not be written, or the wait was interrupted
+     */
+    public void flush() throws QwirkleException {
+        if (!writer.isShutdown()) {
+            try {
+                writer.submit(() -> { }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QwirkleException("The wait for the automatic save was interrupted.");
+            } catch (ExecutionException e) {
+                throw new QwirkleException("The automatic save failed: " + e.getCause().getMessage());
+            }
+        }
+        throwFailure();
+    }
+
+    /**
+     * Throws the error of the last snapshot that could not be written, if it was not thrown yet.
+     *
+     * @throws QwirkleException if a snapshot could not be written
+     */
+    private void throwFailure() throws QwirkleException {
+        var error = failure;
+        if (error != null) {
+            failure = null;
+            throw error;
+        }
+    }
+
+    /**
+     * Returns the number of snapshots written to the file.
+     *
+     * @return the number of saves done
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Returns the number of snapshots that were replaced by a later one before being written.
+     *
+     * @return the number of saves dropped
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes the last snapshot submitted and stops the thread of the saver. No game can be submitted after.
+     *
+     * @throws QwirkleException if a snapshot could not be written, or the wait was interrupted
+     */
+    @Override
+    public void close() throws QwirkleException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QwirkleException("The wait for the automatic save was interrupted.");
+        }
+        throwFailure();
+    }
+}
@@ -1,82 +1,265 @@
 package g60904.qwirkle.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * This class represents a bag of tiles used for a game. It is implemented as a Singleton and can only have one instance created.
+ * This class represents a bag of tiles used for a game. Each {@link Game} owns its own bag, so several games
+ * can be played at the same time, each on its own thread, without sharing their tiles.
  * The bag contains tiles with different colors and shapes. The tiles can be randomly drawn from the bag.
+ * <p>
+ * The tiles of a same color and shape are all alike, so the bag does not keep them: it only counts how many tiles
+ * of each {@link Tile#kind() kind} are left, and draws the canonical tile of a kind ({@link Tile#ofKind(int)}).
+ * A tile is drawn by picking one of the {@value #COPIES} places of a random kind, and trying again when that place
+ * is already empty, so that each tile left has the same chance to be drawn. When the bag is nearly empty, the tile
+ * is found by counting the tiles of each kind instead, so a draw never takes more than a few dozen steps.
  */
-public class Bag implements Serializable{
-    private static Bag instance = new Bag();
-    private final List<Tile> tiles = new ArrayList<>();
+public class Bag implements Serializable {
+    /**
+     * The number of tiles of each color and shape in a full bag.
+     */
+    private static final int COPIES = 3;
+    /**
+     * The number of places of the bag, as many as the tiles of a full bag.
+     */
+    private static final int PLACES = Tile.KINDS * COPIES;
+    /**
+     * When fewer tiles than this are left, they are counted instead of being drawn by trying random places.
+     */
+    private static final int COUNTING_THRESHOLD = PLACES / 4;
+    /**
+     * The number of tiles left of each kind.
+     */
+    private final byte[] counts = new byte[Tile.KINDS];
+    /**
+     * The number of tiles left in the bag.
+     */
+    private int size;
+    /**
+     * The source of the random numbers used to draw the tiles.
+     */
+    private final SplitMixRandom random;
+    /**
+     * The Zobrist key of the counts of the bag, the exclusive or of the key of the count of each kind.
+     */
+    private long zobristKey;
 
     /**
-     * Private constructor used to create the tiles in the bag.
+     * Constructs a full bag, with three tiles of each color and shape, whose tiles are drawn in a random order.
      */
-    private Bag() {
-        for (Color color : Color.values()) {
-            for (Shape shape : Shape.values()) {
-                createNextThreeTiles(color, shape);
-            }
+    public Bag() {
+        this(new SplitMixRandom(ThreadLocalRandom.current().nextLong()));
+    }
+
+    /**
+     * Constructs a full bag, with three tiles of each color and shape, whose tiles are drawn
+     * with the given source of random numbers. Two bags with sources of the same seed draw the same tiles.
+     *
+     * @param random the source of the random numbers used to draw the tiles
+     */
+    public Bag(SplitMixRandom random) {
+        this.random = random;
+        for (int kind = 0; kind < Tile.KINDS; kind++) {
+            counts[kind] = COPIES;
+            zobristKey ^= Zobrist.bagCount(kind, COPIES);
         }
+        size = PLACES;
     }
 
     /**
-     * Returns the singleton instance of the Bag class.
+     * Constructs a bag holding the same tiles as the given one, whose tiles are drawn
+     * with the given source of random numbers.
      *
-     * @return the singleton instance of the Bag class.
+     * @param other  the bag to copy
+     * @param random the source of the random numbers used to draw the tiles of the copy
      */
-    public static Bag getInstance() {
-        return instance;
+    private Bag(Bag other, SplitMixRandom random) {
+        this.random = random;
+        System.arraycopy(other.counts, 0, counts, 0, Tile.KINDS);
+        size = other.size;
+        zobristKey = other.zobristKey;
     }
 
     /**
-     * Sets the instance of the Bag class.
-     * @param bag the instance to be set.
+     * Returns a copy of the bag, which draws the same tiles as this bag would.
+     *
+     * @return an independent copy of the bag
      */
-    public static void setInstance(Bag bag) {
-        instance = bag;
+    public Bag fork() {
+        return new Bag(this, random.copy());
     }
 
     /**
-     * Creates three tiles with the given color and shape and adds them to the bag.
+     * Returns a copy of the bag, which draws its tiles with the given source of random numbers.
+     * A search that must not know the tiles that will be drawn forks the bag with a source of its own.
      *
-     * @param color the color of the tiles.
-     * @param shape the shape of the tiles.
+     * @param random the source of the random numbers used to draw the tiles of the copy
+     * @return an independent copy of the bag
      */
-    private void createNextThreeTiles(Color color, Shape shape) {
-        for (int i = 0; i < 3; i++) {
-            tiles.add(new Tile(color, shape));
-        }
+    public Bag fork(SplitMixRandom random) {
+        return new Bag(this, random);
     }
 
     /**
      * Returns an array of n random tiles drawn from the bag.
-     * The tiles are removed from the bag.
+     * The tiles are removed from the bag. When the bag holds fewer than n tiles,
+     * the last cells of the array are null.
      *
      * @param n the number of tiles to draw.
      * @return an array of n random tiles.
      */
     public Tile[] getRandomTiles(int n) {
         var returnedTile = new Tile[n];
-        for (int i = 0; i < n && !tiles.isEmpty(); i++) {
-            var randomIndex = getRandomNumber(size() - 1);
-            returnedTile[i] = tiles.get(randomIndex);
-            tiles.remove(randomIndex);
+        for (int i = 0; i < n && size > 0; i++) {
+            var kind = size < COUNTING_THRESHOLD ? countToRandomKind() : tryRandomPlaces();
+            zobristKey ^= Zobrist.bagCount(kind, counts[kind]) ^ Zobrist.bagCount(kind, counts[kind] - 1);
+            counts[kind]--;
+            size--;
+            returnedTile[i] = Tile.ofKind(kind);
         }
         return returnedTile;
     }
 
     /**
-     * Returns a random integer between the specified minimum (inclusive) and maximum (inclusive) values.
+     * Picks random places of the bag until one of them holds a tile. Each place belongs to a kind,
+     * and holds a tile when its rank among the places of the kind is lower than the count of the kind.
+     *
+     * @return the kind of the tile found
+     */
+    private int tryRandomPlaces() {
+        while (true) {
+            var place = getRandomNumber(PLACES - 1);
+            var kind = place / COPIES;
+            if (place % COPIES < counts[kind]) {
+                return kind;
+            }
+        }
+    }
+
+    /**
+     * Picks a random tile among the tiles left and finds its kind by counting the tiles of each kind.
+     *
+     * @return the kind of the tile picked
+     */
+    private int countToRandomKind() {
+        var rank = getRandomNumber(size - 1);
+        var kind = 0;
+        while (rank >= counts[kind]) {
+            rank -= counts[kind];
+            kind++;
+        }
+        return kind;
+    }
+
+    /**
+     * Returns a random integer between 0 (inclusive) and the specified maximum (inclusive) value.
      *
      * @param max the maximum value to be included in the range
-     * @return a random integer between the specified minimum (inclusive) and maximum (inclusive) values
+     * @return a random integer between 0 (inclusive) and the specified maximum (inclusive) value
      */
     private int getRandomNumber(int max) {
-        return (int) (Math.random() * (max + 1));
+        return random.nextInt(max + 1);
+    }
+
+    /**
+     * Puts a tile that was drawn from the bag back in it.
+     *
+     * @param tile the tile to put back
+     */
+    void putBack(Tile tile) {
+        var kind = tile.kind();
+        zobristKey ^= Zobrist.bagCount(kind, counts[kind]) ^ Zobrist.bagCount(kind, counts[kind] + 1);
+        counts[kind]++;
+        size++;
+    }
+
+    /**
+     * Returns the number of tiles of the given kind left in the bag.
+     *
+     * @param kind the {@link Tile#kind() kind} of the tiles
+     * @return the number of tiles of that kind in the bag
+     */
+    int count(int kind) {
+        return counts[kind];
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}: the count of each kind
+     * and the state and the gamma of the source of random numbers.
+     *
+     * @return the size of the bag in a saved game
+     */
+    static int encodedSize() {
+        return Tile.KINDS + 2 * Long.BYTES;
+    }
+
+    /**
+     * Writes the number of tiles left of each kind, one byte each, and the state and the gamma of the source
+     * of random numbers, so that the bag read back draws the same tiles as this one, even when its source
+     * was split from another one.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedSize()} bytes left
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.put(counts);
+        buffer.putLong(random.getState());
+        buffer.putLong(random.getGamma());
+    }
+
+    /**
+     * Reads a bag written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the bag read
+     * @throws QwirkleException if a count read is not a number of tiles of a kind, or the gamma is not one
+     */
+    static Bag readFrom(ByteBuffer buffer) throws QwirkleException {
+        var counts = new byte[Tile.KINDS];
+        buffer.get(counts);
+        var state = buffer.getLong();
+        var gamma = buffer.getLong();
+        if ((gamma & 1) == 0) {
+            throw new QwirkleException("The bag of the saved game is corrupted.");
+        }
+        var bag = new Bag(SplitMixRandom.fromState(state, gamma));
+        for (int kind = 0; kind < Tile.KINDS; kind++) {
+            if (counts[kind] < 0 || counts[kind] > COPIES) {
+                throw new QwirkleException("The bag of the saved game is corrupted.");
+            }
+            bag.zobristKey ^= Zobrist.bagCount(kind, COPIES) ^ Zobrist.bagCount(kind, counts[kind]);
+            bag.size -= COPIES - counts[kind];
+            bag.counts[kind] = counts[kind];
+        }
+        return bag;
+    }
+
+    /**
+     * Returns the Zobrist key of the tiles left in the bag. Two bags holding as many tiles of each kind
+     * have the same key.
+     *
+     * @return the Zobrist key of the bag
+     */
+    long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Returns the state of the source of random numbers of the bag, so that the next draws can be made again.
+     *
+     * @return the state of the source of random numbers
+     */
+    long getRandomState() {
+        return random.getState();
+    }
+
+    /**
+     * Sets the source of random numbers of the bag back to a state it had.
+     *
+     * @param state a state returned by {@link #getRandomState()}
+     */
+    void setRandomState(long state) {
+        random.setState(state);
     }
 
     /**
@@ -85,6 +268,6 @@ public class Bag implements Serializable{
      * @return the number of tiles in the bag.
      */
     public int size() {
-        return tiles.size();
+        return size;
     }
 }
@@ -0,0 +1,147 @@
+package g60904.qwirkle.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A small open addressing map from packed cell indexes to slot numbers.
+ * It is used by the {@link Grid} to find the per-tile data of an occupied cell
+ * without boxing the cell index, so looking a cell up does not allocate.
+ */
+final class CellSlots implements Serializable {
+    private static final int FREE = Integer.MIN_VALUE;
+    private int[] cells;
+    private int[] slots;
+    private int size;
+
+    /**
+     * Constructs an empty map.
+     */
+    CellSlots() {
+        cells = new int[64];
+        slots = new int[64];
+        Arrays.fill(cells, FREE);
+    }
+
+    /**
+     * Constructs a map containing the same entries as the given one.
+     *
+     * @param other the map to copy
+     */
+    CellSlots(CellSlots other) {
+        cells = other.cells.clone();
+        slots = other.slots.clone();
+        size = other.size;
+    }
+
+    /**
+     * Returns the slot associated with the given cell.
+     *
+     * @param cell the packed cell index
+     * @return the slot of the cell, or -1 if the cell has no slot
+     */
+    int get(int cell) {
+        var mask = cells.length - 1;
+        for (int i = hash(cell) & mask; cells[i] != FREE; i = (i + 1) & mask) {
+            if (cells[i] == cell) {
+                return slots[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Associates the given slot with the given cell, replacing any previous slot.
+     *
+     * @param cell the packed cell index
+     * @param slot the slot to associate with the cell
+     */
+    void put(int cell, int slot) {
+        if ((size + 1) * 2 > cells.length) {
+            grow();
+        }
+        var mask = cells.length - 1;
+        var i = hash(cell) & mask;
+        while (cells[i] != FREE && cells[i] != cell) {
+            i = (i + 1) & mask;
+        }
+        if (cells[i] == FREE) {
+            size++;
+        }
+        cells[i] = cell;
+        slots[i] = slot;
+    }
+
+    /**
+     * Removes the slot associated with the given cell, if any.
+     * The following entries of the probe sequence are shifted back so that no tombstone is needed.
+     *
+     * @param cell the packed cell index
+     */
+    void remove(int cell) {
+        var mask = cells.length - 1;
+        var i = hash(cell) & mask;
+        while (cells[i] != cell) {
+            if (cells[i] == FREE) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        size--;
+        for (int j = (i + 1) & mask; cells[j] != FREE; j = (j + 1) & mask) {
+            var home = hash(cells[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                cells[i] = cells[j];
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        cells[i] = FREE;
+    }
+
+    /**
+     * Returns the number of cells that have a slot.
+     *
+     * @return the number of entries of the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entries the map can hold before it grows.
+     *
+     * @return the length of the tables of the map
+     */
+    int capacity() {
+        return cells.length;
+    }
+
+    /**
+     * Doubles the capacity of the map and re-inserts every entry.
+     */
+    private void grow() {
+        var oldCells = cells;
+        var oldSlots = slots;
+        cells = new int[oldCells.length * 2];
+        slots = new int[oldSlots.length * 2];
+        Arrays.fill(cells, FREE);
+        size = 0;
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] != FREE) {
+                put(oldCells[i], oldSlots[i]);
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of a cell index so that neighbouring cells do not collide.
+     *
+     * @param cell the packed cell index
+     * @return the hash of the cell
+     */
+    private static int hash(int cell) {
+        var h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
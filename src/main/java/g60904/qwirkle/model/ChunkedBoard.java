@@ -0,0 +1,232 @@
+package g60904.qwirkle.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The ChunkedBoard class stores one byte per cell of an unbounded board.
+ * The board is cut into 16x16 chunks that are only allocated once a non-zero byte is written in them,
+ * so the memory used grows with the number of occupied cells and not with the size of the board.
+ * <p>
+ * Cells are addressed by packed cell indexes as built by {@link #pack(int, int)}: the row and the column
+ * relative to the origin of the board are biased by {@code 0x8000} and stored in the high and low 16 bits.
+ * Moving one column is therefore {@code +/- 1} and moving one row {@code +/- ROW_STRIDE}.
+ */
+final class ChunkedBoard implements Serializable {
+    /**
+     * The difference between the packed indexes of two vertically adjacent cells.
+     */
+    static final int ROW_STRIDE = 1 << 16;
+    /**
+     * The largest distance from the origin, in rows or columns, that a cell can have.
+     */
+    static final int MAX_DISTANCE = 0x7FFF;
+    private static final int BIAS = 0x8000;
+    private static final int CHUNK_BITS = 4;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int FREE = -1;
+    private int[] keys;
+    private byte[][] chunks;
+    private int chunkCount;
+    private int lastKey = FREE;
+    private byte[] lastChunk;
+
+    /**
+     * Constructs an empty board, no chunk is allocated.
+     */
+    ChunkedBoard() {
+        keys = new int[16];
+        chunks = new byte[16][];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Constructs a board holding the same bytes as the given one. Each chunk is copied,
+     * so writing in one board never changes the other.
+     *
+     * @param other the board to copy
+     */
+    ChunkedBoard(ChunkedBoard other) {
+        keys = other.keys.clone();
+        chunks = new byte[other.chunks.length][];
+        for (int i = 0; i < chunks.length; i++) {
+            if (other.chunks[i] != null) {
+                chunks[i] = other.chunks[i].clone();
+            }
+        }
+        chunkCount = other.chunkCount;
+    }
+
+    /**
+     * Packs a position relative to the origin of the board into a cell index.
+     * Both coordinates must be between {@code -MAX_DISTANCE} and {@code MAX_DISTANCE}.
+     *
+     * @param row the row relative to the origin
+     * @param col the column relative to the origin
+     * @return the packed cell index
+     */
+    static int pack(int row, int col) {
+        return ((row + BIAS) << 16) | (col + BIAS);
+    }
+
+    /**
+     * Returns the row, relative to the origin, of a packed cell index.
+     *
+     * @param cell the packed cell index
+     * @return the row relative to the origin
+     */
+    static int rowOf(int cell) {
+        return (cell >>> 16) - BIAS;
+    }
+
+    /**
+     * Returns the column, relative to the origin, of a packed cell index.
+     *
+     * @param cell the packed cell index
+     * @return the column relative to the origin
+     */
+    static int colOf(int cell) {
+        return (cell & 0xFFFF) - BIAS;
+    }
+
+    /**
+     * Returns the byte stored in the given cell.
+     *
+     * @param cell the packed cell index
+     * @return the byte of the cell, 0 if nothing was ever written in its chunk
+     */
+    byte get(int cell) {
+        var chunk = chunk(chunkKey(cell));
+        return chunk == null ? 0 : chunk[localIndex(cell)];
+    }
+
+    /**
+     * Writes a byte in the given cell, allocating its chunk if needed.
+     *
+     * @param cell  the packed cell index
+     * @param value the byte to write
+     */
+    void set(int cell, byte value) {
+        var key = chunkKey(cell);
+        var chunk = chunk(key);
+        if (chunk == null) {
+            if (value == 0) {
+                return;
+            }
+            chunk = allocate(key);
+        }
+        chunk[localIndex(cell)] = value;
+    }
+
+    /**
+     * Returns the number of chunks allocated so far.
+     *
+     * @return the number of allocated chunks
+     */
+    int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Finds the chunk with the given key, remembering the last one found since consecutive
+     * accesses nearly always hit the same chunk.
+     *
+     * @param key the key of the chunk
+     * @return the chunk, or {@code null} if it was never allocated
+     */
+    private byte[] chunk(int key) {
+        if (key == lastKey) {
+            return lastChunk;
+        }
+        var mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                lastKey = key;
+                lastChunk = chunks[i];
+                return lastChunk;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Allocates the chunk with the given key.
+     *
+     * @param key the key of the chunk
+     * @return the new chunk
+     */
+    private byte[] allocate(int key) {
+        if ((chunkCount + 1) * 2 > keys.length) {
+            grow();
+        }
+        var chunk = new byte[1 << (2 * CHUNK_BITS)];
+        insert(key, chunk);
+        chunkCount++;
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Inserts a chunk in the table of chunks.
+     *
+     * @param key   the key of the chunk
+     * @param chunk the chunk
+     */
+    private void insert(int key, byte[] chunk) {
+        var mask = keys.length - 1;
+        var i = hash(key) & mask;
+        while (keys[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        chunks[i] = chunk;
+    }
+
+    /**
+     * Doubles the capacity of the table of chunks.
+     */
+    private void grow() {
+        var oldKeys = keys;
+        var oldChunks = chunks;
+        keys = new int[oldKeys.length * 2];
+        chunks = new byte[oldChunks.length * 2][];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                insert(oldKeys[i], oldChunks[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the chunk containing a cell, made of the chunk row and the chunk column.
+     *
+     * @param cell the packed cell index
+     * @return the key of the chunk
+     */
+    private static int chunkKey(int cell) {
+        return ((cell >>> (16 + CHUNK_BITS)) << (16 - CHUNK_BITS)) | ((cell & 0xFFFF) >>> CHUNK_BITS);
+    }
+
+    /**
+     * Returns the index of a cell inside its chunk.
+     *
+     * @param cell the packed cell index
+     * @return the index of the cell in its chunk
+     */
+    private static int localIndex(int cell) {
+        return (((cell >>> 16) & CHUNK_MASK) << CHUNK_BITS) | (cell & CHUNK_MASK);
+    }
+
+    /**
+     * Spreads the bits of a chunk key.
+     *
+     * @param key the key of the chunk
+     * @return the hash of the key
+     */
+    private static int hash(int key) {
+        var h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
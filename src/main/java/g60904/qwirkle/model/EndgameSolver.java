@@ -0,0 +1,348 @@
+package g60904.qwirkle.model;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A strategy that solves the end of the game exactly, once the bag is empty, and lets another strategy play before.
+ * <p>
+ * When the bag is empty, every tile left is in a hand and nothing is drawn anymore, so the game has no hidden part
+ * and can be searched to its end. The solver runs an alpha-beta search, deeper and deeper, over the moves of a fork
+ * of the game that it plays and undoes ({@link Game#undo()}), and it stops as soon as a search reached the end of
+ * the game on every line, which is then the exact result. The value of a position is the score of the player
+ * to solve for minus the best score of the others. With more than two players, the others are supposed to play
+ * together against that player (a paranoid search), so the value is the one that player is sure to reach.
+ * <p>
+ * The moves are tried in the order of their score, after the best move found for the position by a previous search,
+ * which is kept in a transposition table with the value found. The key of a position is its Zobrist key with the
+ * hands, the player to play and the scores, so two lines of moves that reach the same position share their search.
+ * <p>
+ * The search stops when its time is over, and the best line of the last search that was finished is kept.
+ * A line may stop before the end of the game where its position was found in the transposition table.
+ * A solver searches one game at a time.
+ */
+public class EndgameSolver implements PlayerStrategy {
+    private static final int TABLE_BITS = 18;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final byte EXACT = 0;
+    private static final byte LOWER_BOUND = 1;
+    private static final byte UPPER_BOUND = 2;
+    /**
+     * The depth given to a value found with every line reaching the end of the game, which no search goes beyond.
+     */
+    private static final int RESOLVED = Byte.MAX_VALUE;
+    private static final int MAX_DEPTH = 100;
+    /**
+     * The number of positions searched between two looks at the clock.
+     */
+    private static final int CLOCK_PERIOD = 256;
+    private final Duration budget;
+    private final PlayerStrategy beforeEndgame;
+    private long[] keys;
+    private int[] values;
+    private long[] bestMoves;
+    private byte[] depths;
+    private byte[] bounds;
+    private Game game;
+    private int solvedPlayer;
+    private long deadline;
+    private long nodes;
+    private int cutoffs;
+    private Move[][] lines;
+    private int[] lineLengths;
+
+    /**
+     * The result of the search of an endgame.
+     *
+     * @param move  the best move found for the player to play, or null to pass or if the game is over
+     * @param value the score of the player minus the best score of the others at the end of the best line
+     * @param exact whether the search reached the end of the game on every line, so the value is exact
+     * @param line  the best line found, a null move being a pass
+     * @param depth the number of turns of the last search finished
+     * @param nodes the number of positions searched
+     */
+    public record Result(Move move, int value, boolean exact, List<Move> line, int depth, long nodes) {
+    }
+
+    /**
+     * Constructs a solver that searches each endgame move for the given time, and lets the given strategy
+     * play while the bag is not empty.
+     *
+     * @param budget        the time given to choose a move of the endgame
+     * @param beforeEndgame the strategy that plays while the bag holds tiles
+     */
+    public EndgameSolver(Duration budget, PlayerStrategy beforeEndgame) {
+        this.budget = budget;
+        this.beforeEndgame = beforeEndgame;
+    }
+
+    /**
+     * Chooses the best move of the endgame when the bag is empty, or asks the other strategy before.
+     *
+     * @param game the game, whose current player is the one to play
+     * @return the move chosen, or {@code null} to pass
+     */
+    @Override
+    public Move chooseMove(Game game) {
+        if (game.getBagSize() > 0) {
+            return beforeEndgame.chooseMove(game);
+        }
+        return solve(game).move();
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}: the budget and the strategy
+     * that plays before the endgame.
+     *
+     * @return the size of the strategy in a saved game
+     * @throws QwirkleException if the strategy that plays before the endgame cannot be saved
+     */
+    int encodedSize() throws QwirkleException {
+        return Long.BYTES + Player.strategySize(beforeEndgame);
+    }
+
+    /**
+     * Writes the budget in nanoseconds and the strategy that plays before the endgame, as a player writes it.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedSize()} bytes left
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(budget.toNanos());
+        Player.writeStrategy(buffer, beforeEndgame);
+    }
+
+    /**
+     * Reads a solver written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the solver read
+     * @throws QwirkleException if the budget or the strategy that plays before the endgame are not possible
+     */
+    static EndgameSolver readFrom(ByteBuffer buffer) throws QwirkleException {
+        var budget = buffer.getLong();
+        if (budget <= 0) {
+            throw new QwirkleException("The strategy of a player of the saved game is corrupted.");
+        }
+        return new EndgameSolver(Duration.ofNanos(budget), Player.readStrategy(buffer));
+    }
+
+    /**
+     * Searches the endgame for the current player, for the time given, without changing the game.
+     *
+     * @param game the game, whose bag must be empty
+     * @return the best move and line found
+     * @throws QwirkleException if the bag of the game is not empty
+     */
+    public Result solve(Game game) throws QwirkleException {
+        if (game.getBagSize() > 0) {
+            throw new QwirkleException("The endgame starts once the bag is empty.");
+        }
+        prepare(game);
+        var line = new ArrayList<Move>();
+        var value = 0;
+        var exact = false;
+        var depth = 0;
+        try {
+            for (int limit = 1; limit <= MAX_DEPTH && !exact; limit++) {
+                cutoffs = 0;
+                value = search(limit, Integer.MIN_VALUE, Integer.MAX_VALUE, 0);
+                line.clear();
+                Collections.addAll(line, lines[0]);
+                line.subList(lineLengths[0], line.size()).clear();
+                exact = cutoffs == 0;
+                depth = limit;
+            }
+        } catch (OutOfTime e) {
+            if (depth == 0) {
+                var moves = game.getCurrentPlayerMoves();
+                line.add(moves.isEmpty() ? null : new GreedyStrategy().chooseMove(game));
+            }
+        }
+        this.game = null;
+        return new Result(line.isEmpty() ? null : line.get(0), value, exact, Collections.unmodifiableList(line), depth, nodes);
+    }
+
+    /**
+     * Forks the game to search and makes the transposition table ready, allocating it the first time.
+     *
+     * @param game the game to search
+     */
+    private void prepare(Game game) {
+        if (keys == null) {
+            keys = new long[1 << TABLE_BITS];
+            values = new int[1 << TABLE_BITS];
+            bestMoves = new long[1 << TABLE_BITS];
+            depths = new byte[1 << TABLE_BITS];
+            bounds = new byte[1 << TABLE_BITS];
+            lines = new Move[MAX_DEPTH + 1][MAX_DEPTH + 1];
+            lineLengths = new int[MAX_DEPTH + 1];
+        }
+        Arrays.fill(keys, 0);
+        this.game = game.fork();
+        solvedPlayer = game.getCurrentPlayer();
+        deadline = System.nanoTime() + budget.toNanos();
+        nodes = 0;
+    }
+
+    /**
+     * Searches the position of the fork by alpha-beta, for at most the given number of turns.
+     *
+     * @param depth the number of turns left to search
+     * @param alpha the value the solved player is already sure to reach
+     * @param beta  the value the other players are already sure to hold the solved player to
+     * @param ply   the number of turns played from the root
+     * @return the value of the position, exact if it lies between alpha and beta, a bound otherwise
+     * @throws OutOfTime if the time of the search is over
+     */
+    private int search(int depth, int alpha, int beta, int ply) throws OutOfTime {
+        if (++nodes % CLOCK_PERIOD == 0 && System.nanoTime() > deadline) {
+            throw OutOfTime.INSTANCE;
+        }
+        lineLengths[ply] = ply;
+        if (game.isOver()) {
+            return value();
+        }
+        if (depth == 0) {
+            cutoffs++;
+            return value();
+        }
+        var key = positionKey();
+        var slot = (int) key & TABLE_MASK;
+        var tableMove = 0L;
+        var alphaBefore = alpha;
+        var betaBefore = beta;
+        if (keys[slot] == key) {
+            tableMove = bestMoves[slot];
+            if (depths[slot] >= depth && ply > 0) {
+                var stored = values[slot];
+                if (bounds[slot] == EXACT) {
+                    alpha = beta = stored;
+                } else if (bounds[slot] == LOWER_BOUND) {
+                    alpha = Math.max(alpha, stored);
+                } else {
+                    beta = Math.min(beta, stored);
+                }
+                if (alpha >= beta) {
+                    if (depths[slot] != RESOLVED) {
+                        cutoffs++;
+                    }
+                    return stored;
+                }
+            }
+        }
+        var cutoffsBefore = cutoffs;
+        var moves = orderedMoves(tableMove);
+        var maximizing = game.getCurrentPlayer() == solvedPlayer;
+        var best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        var bestMove = 0L;
+        for (int i = 0; i < Math.max(moves.size(), 1); i++) {
+            var move = moves.isEmpty() ? null : moves.get(i);
+            play(move);
+            var value = search(depth - 1, alpha, beta, ply + 1);
+            game.undo();
+            if (maximizing ? value > best : value < best) {
+                best = value;
+                bestMove = move == null ? 0 : move.key();
+                lines[ply][ply] = move;
+                System.arraycopy(lines[ply + 1], ply + 1, lines[ply], ply + 1, lineLengths[ply + 1] - ply - 1);
+                lineLengths[ply] = lineLengths[ply + 1];
+            }
+            if (maximizing) {
+                alpha = Math.max(alpha, value);
+            } else {
+                beta = Math.min(beta, value);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = best;
+        bestMoves[slot] = bestMove;
+        depths[slot] = (byte) (cutoffs == cutoffsBefore ? RESOLVED : depth);
+        bounds[slot] = best <= alphaBefore ? UPPER_BOUND : best >= betaBefore ? LOWER_BOUND : EXACT;
+        return best;
+    }
+
+    /**
+     * Returns the legal moves of the current player of the fork, the move of the transposition table first
+     * and then by decreasing score.
+     *
+     * @param tableMove the key of the best move found before for the position, or 0
+     * @return the ordered moves, empty if the player can only pass
+     */
+    private List<Move> orderedMoves(long tableMove) {
+        var moves = new ArrayList<>(game.getCurrentPlayerMoves());
+        moves.sort((first, second) -> Integer.compare(second.score(), first.score()));
+        if (tableMove != 0) {
+            for (int i = 1; i < moves.size(); i++) {
+                if (moves.get(i).key() == tableMove) {
+                    moves.add(0, moves.remove(i));
+                    break;
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Plays a move on the fork, or passes.
+     *
+     * @param move the move to play, or null to pass
+     */
+    private void play(Move move) {
+        if (move == null) {
+            game.pass();
+        } else {
+            game.play(move);
+        }
+    }
+
+    /**
+     * Returns the key of the position of the fork: the grid, the hands, the player to play and the scores.
+     *
+     * @return the key of the position
+     */
+    private long positionKey() {
+        var key = game.getZobristKey(true, false);
+        var scores = game.getPlayersScore();
+        for (int i = 0; i < scores.length; i++) {
+            key ^= Zobrist.score(i, scores[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the value of the position of the fork for the solved player.
+     *
+     * @return the score of the solved player minus the best score of the others
+     */
+    private int value() {
+        var scores = game.getPlayersScore();
+        var best = Integer.MIN_VALUE;
+        for (int i = 0; i < scores.length; i++) {
+            if (i != solvedPlayer) {
+                best = Math.max(best, scores[i]);
+            }
+        }
+        return best == Integer.MIN_VALUE ? scores[solvedPlayer] : scores[solvedPlayer] - best;
+    }
+
+    /**
+     * Thrown through the search when its time is over. It has no stack trace, so throwing it costs nothing.
+     */
+    private static final class OutOfTime extends Exception {
+        private static final OutOfTime INSTANCE = new OutOfTime();
+
+        /**
+         * Constructs the only instance of the exception.
+         */
+        private OutOfTime() {
+            super(null, null, false, false);
+        }
+    }
+}
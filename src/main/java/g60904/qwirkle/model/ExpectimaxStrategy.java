@@ -0,0 +1,334 @@
+package g60904.qwirkle.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A strategy that chooses its moves by an expectimax search over the tiles it will draw after its move.
+ * <p>
+ * Each of the {@value #WIDTH} best scoring moves of the player is placed on a fork of the grid, and its value is
+ * its score plus the best score the player can expect at their next turn, with the tiles left in their hand and
+ * the tiles drawn to refill it. The draws are the chance nodes of the search: the tiles are drawn one at a time,
+ * each kind with the chance given by the number of tiles of that kind the player does not see, those of the bag
+ * and of the other hands. After the last draw, the value of the hand is the score of its best move on the grid.
+ * The grid is supposed to stay as it is until the next turn, and the weight of that turn is lowered because the
+ * other players will change it. At most {@code draws} tiles are drawn by the search, the others are left out.
+ * <p>
+ * The tiles drawn make the same hand whatever their order, so the value of each hand reached is kept and found
+ * again instead of being searched once more. The search also prunes the chance nodes (Star1): the score of
+ * a move is at most a bound computed from the lines of the grid, so when the draws already tried, with that
+ * bound for the ones left, cannot make the move better than the best move found, the draws left are not tried.
+ * The pruning never changes the move chosen, and the number of nodes searched and of draws pruned by the last
+ * search are kept to see its effect.
+ */
+public class ExpectimaxStrategy implements PlayerStrategy {
+    /**
+     * The number of the best scoring moves of the player whose draws are searched.
+     */
+    private static final int WIDTH = 8;
+    /**
+     * The weight of the best score expected at the next turn, the score of the move having a weight of 1.
+     */
+    private static final double NEXT_TURN_WEIGHT = 0.5;
+    private final int draws;
+    private final boolean pruning;
+    private Grid grid;
+    private MoveGenerator generator;
+    private List<Tile> hand;
+    private int[] handCounts;
+    private long handKey;
+    private int[] unseen;
+    private int unseenSize;
+    private int[] crossPoints;
+    private Map<Long, Double> values;
+    private long lastNodes;
+    private double lastNodesPerSecond;
+    private long lastPrunedDraws;
+
+    /**
+     * Constructs a strategy that searches the first draw after each move, with pruning.
+     */
+    public ExpectimaxStrategy() {
+        this(1, true);
+    }
+
+    /**
+     * Constructs a strategy that searches the given number of draws after each move.
+     *
+     * @param draws   the largest number of tiles drawn by the search after a move
+     * @param pruning whether the chance nodes are pruned, which never changes the move chosen
+     * @throws QwirkleException if the number of draws is negative
+     */
+    public ExpectimaxStrategy(int draws, boolean pruning) throws QwirkleException {
+        if (draws < 0) {
+            throw new QwirkleException("The number of draws searched cannot be negative.");
+        }
+        this.draws = draws;
+        this.pruning = pruning;
+    }
+
+    /**
+     * Chooses the move whose score plus the best score expected at the next turn is the highest.
+     *
+     * @param game the game, whose current player is the one to play
+     * @return the move chosen, or {@code null} if the current player cannot play
+     */
+    @Override
+    public Move chooseMove(Game game) {
+        var start = System.nanoTime();
+        lastNodes = 0;
+        lastPrunedDraws = 0;
+        var moves = new ArrayList<>(game.getCurrentPlayerMoves());
+        if (moves.size() <= 1) {
+            lastNodesPerSecond = 0;
+            return moves.isEmpty() ? null : moves.get(0);
+        }
+        moves.sort((first, second) -> Integer.compare(second.score(), first.score()));
+        grid = game.getGrid().fork();
+        generator = new MoveGenerator(grid);
+        values = new HashMap<>();
+        Move best = null;
+        var bestValue = Double.NEGATIVE_INFINITY;
+        for (Move move : moves.subList(0, Math.min(WIDTH, moves.size()))) {
+            grid.apply(move);
+            prepare(game, move);
+            var drawCount = Math.min(Math.min(move.size(), game.getBagSize()), draws);
+            var value = move.score() + NEXT_TURN_WEIGHT * expected(drawCount,
+                    (bestValue - move.score()) / NEXT_TURN_WEIGHT);
+            grid.undo();
+            if (value > bestValue) {
+                best = move;
+                bestValue = value;
+            }
+        }
+        grid = null;
+        generator = null;
+        values = null;
+        lastNodesPerSecond = lastNodes / ((System.nanoTime() - start) / 1e9);
+        return best;
+    }
+
+    /**
+     * Returns the number of nodes of the last search: the chance nodes and the hands whose best move was searched.
+     *
+     * @return the number of nodes of the last search
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Returns the number of nodes per second of the last search.
+     *
+     * @return the nodes per second of the last search
+     */
+    public double getLastNodesPerSecond() {
+        return lastNodesPerSecond;
+    }
+
+    /**
+     * Returns the number of draws of the last search that were not tried because of the pruning.
+     *
+     * @return the number of draws pruned by the last search
+     */
+    public long getLastPrunedDraws() {
+        return lastPrunedDraws;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}: the number of draws and the pruning.
+     *
+     * @return the size of the strategy in a saved game
+     */
+    int encodedSize() {
+        return Integer.BYTES + 1;
+    }
+
+    /**
+     * Writes the number of draws searched after a move and whether the chance nodes are pruned.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedSize()} bytes left
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(draws);
+        buffer.put((byte) (pruning ? 1 : 0));
+    }
+
+    /**
+     * Reads a strategy written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the strategy read
+     * @throws QwirkleException if the number of draws or the pruning read are not possible
+     */
+    static ExpectimaxStrategy readFrom(ByteBuffer buffer) throws QwirkleException {
+        var draws = buffer.getInt();
+        var pruning = buffer.get();
+        if (draws < 0 || pruning < 0 || pruning > 1) {
+            throw new QwirkleException("The strategy of a player of the saved game is corrupted.");
+        }
+        return new ExpectimaxStrategy(draws, pruning == 1);
+    }
+
+    /**
+     * Makes the search of the draws after a move ready: the hand left by the move, the tiles the player does not
+     * see and the bound of the points of a tile on the grid of the move. The values of the hands found for
+     * another move are forgotten, as they were found on another grid. Only exact values are kept: a value
+     * below which some draws were pruned is a bound.
+     *
+     * @param game the game searched
+     * @param move the move placed on the fork of the grid
+     */
+    private void prepare(Game game, Move move) {
+        hand = new ArrayList<>(game.getCurrentPlayerHand());
+        var indexes = move.handIndexes().clone();
+        Arrays.sort(indexes);
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            hand.remove(indexes[i]);
+        }
+        handCounts = new int[Tile.KINDS];
+        handKey = 0;
+        for (Tile tile : hand) {
+            handKey ^= Zobrist.handTile(0, tile.kind(), handCounts[tile.kind()]++);
+        }
+        unseen = game.getUnseenCounts(game.getCurrentPlayer());
+        unseenSize = 0;
+        for (int count : unseen) {
+            unseenSize += count;
+        }
+        crossPoints = crossPointsBound();
+        values.clear();
+    }
+
+    /**
+     * Computes, for each number of tiles, the most points these tiles can win with the lines crossing a move,
+     * on the grid of the move. Only a tile placed on an anchor has a neighbour across the move, and two tiles
+     * of a move are never on the same anchor, so the anchors whose lines would give the most points give the bound.
+     *
+     * @return the most points of the crossing lines of 0 to {@value ScoreCalculator#QWIRKLE_LENGTH} tiles
+     */
+    private int[] crossPointsBound() {
+        var points = new int[grid.getAnchorCount()];
+        for (int i = 0; i < points.length; i++) {
+            var row = grid.getAnchorRow(i);
+            var col = grid.getAnchorCol(i);
+            var rowLine = LineMask.merge(grid.lineNextTo(row, col, Direction.LEFT),
+                    grid.lineNextTo(row, col, Direction.RIGHT));
+            var colLine = LineMask.merge(grid.lineNextTo(row, col, Direction.UP),
+                    grid.lineNextTo(row, col, Direction.DOWN));
+            var longest = Math.max(LineMask.length(rowLine), LineMask.length(colLine)) + 1;
+            points[i] = ScoreCalculator.linePoints(Math.min(longest, ScoreCalculator.QWIRKLE_LENGTH));
+        }
+        Arrays.sort(points);
+        var bounds = new int[ScoreCalculator.QWIRKLE_LENGTH + 1];
+        for (int tiles = 1; tiles < bounds.length; tiles++) {
+            bounds[tiles] = bounds[tiles - 1] + (tiles <= points.length ? points[points.length - tiles] : 0);
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns a bound of the score of the best move of a hand of the given size on the grid of the move:
+     * the points of a complete main line and of the best crossing lines for the tiles of the hand.
+     *
+     * @param handSize the number of tiles of the hand
+     * @return a score that no move of the hand can beat
+     */
+    private int scoreBound(int handSize) {
+        return ScoreCalculator.linePoints(ScoreCalculator.QWIRKLE_LENGTH)
+                + crossPoints[Math.min(handSize, ScoreCalculator.QWIRKLE_LENGTH)];
+    }
+
+    /**
+     * Computes the best score the player can expect at the next turn, when the given number of tiles are still
+     * to be drawn. When the value is not above the given one, a bound of it may be returned instead, which is
+     * not above that value either.
+     *
+     * @param left  the number of tiles still to be drawn
+     * @param alpha the value the caller already has, below which the exact value is not needed
+     * @return the expected best score, or a bound not above alpha
+     */
+    private double expected(int left, double alpha) {
+        lastNodes++;
+        var known = values.get(handKey);
+        if (known != null) {
+            return known;
+        }
+        if (left == 0) {
+            var best = 0;
+            for (Move move : generator.generate(hand)) {
+                best = Math.max(best, move.score());
+            }
+            values.put(handKey, (double) best);
+            return best;
+        }
+        var bound = scoreBound(hand.size() + left);
+        var prunedBefore = lastPrunedDraws;
+        var sum = 0.0;
+        var chanceLeft = 1.0;
+        for (int kind = 0; kind < Tile.KINDS; kind++) {
+            if (unseen[kind] == 0) {
+                continue;
+            }
+            if (pruning && sum + chanceLeft * bound <= alpha) {
+                lastPrunedDraws += countKindsFrom(kind);
+                return sum + chanceLeft * bound;
+            }
+            var chance = (double) unseen[kind] / unseenSize;
+            var childAlpha = (alpha - sum - (chanceLeft - chance) * bound) / chance;
+            drawTile(kind);
+            var value = expected(left - 1, childAlpha);
+            putBackTile(kind);
+            sum += chance * value;
+            chanceLeft -= chance;
+        }
+        if (lastPrunedDraws == prunedBefore) {
+            values.put(handKey, sum);
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the kinds of tiles, from the given one, that the player may still draw.
+     *
+     * @param first the first kind counted
+     * @return the number of kinds not seen from the given one
+     */
+    private int countKindsFrom(int first) {
+        var count = 0;
+        for (int kind = first; kind < Tile.KINDS; kind++) {
+            if (unseen[kind] > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a tile of the given kind to the hand searched, as if it was drawn.
+     *
+     * @param kind the kind of the tile drawn
+     */
+    private void drawTile(int kind) {
+        unseen[kind]--;
+        unseenSize--;
+        hand.add(Tile.ofKind(kind));
+        handKey ^= Zobrist.handTile(0, kind, handCounts[kind]++);
+    }
+
+    /**
+     * Takes the last tile drawn back from the hand searched.
+     *
+     * @param kind the kind of the tile drawn
+     */
+    private void putBackTile(int kind) {
+        handKey ^= Zobrist.handTile(0, kind, --handCounts[kind]);
+        hand.remove(hand.size() - 1);
+        unseenSize++;
+        unseen[kind]++;
+    }
+}
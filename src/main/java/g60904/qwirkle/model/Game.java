@@ -1,8 +1,17 @@
 package g60904.qwirkle.model;
 
-import javax.swing.*;
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class represents a Qwirkle game. It contains a grid where tiles can be placed and an array of players.
@@ -22,15 +31,54 @@ public class Game implements Serializable {
      * The index of the current player.
      */
     private int currentPlayer;
-    private final Bag bag = Bag.getInstance();
-    private static final JFileChooser fc = new JFileChooser();
+    /**
+     * The bag of the game, from which the hands of its players are refilled.
+     */
+    private final Bag bag;
+    /**
+     * The seed of the random numbers of the game, from which its tiles are drawn.
+     */
+    private final long seed;
     private static final int MAX_NUMBER_PLAYERS = 5;
     /**
-     * Constructs a new Qwirkle game with the specified list of players.
+     * The points given to the player who ends the game by playing all the tiles of their hand.
+     */
+    private static final int END_BONUS = 7;
+    /**
+     * The journal of the turns played, read backwards by {@link #undo()}. For each turn, it holds the index and
+     * the kind of each tile played, the number of tiles played, the points won, the number of tiles drawn by the
+     * player and by the next player, and the index of the player.
+     */
+    private int[] journal = new int[64];
+    private int journalSize;
+    /**
+     * The state of the source of random numbers of the bag at the start of each turn played.
+     */
+    private long[] randomStates = new long[16];
+    private int turns;
+    /**
+     * The journal file where each turn is written down as it is played, if the game has one.
+     * It is neither saved nor forked with the game.
+     */
+    private transient MoveJournal moveJournal;
+    /**
+     * Constructs a new Qwirkle game with the specified list of players, whose tiles are drawn in a random order.
      * @param playersNameList the list of players to participate in the game
      * @throws QwirkleException if the number of players exceeds the maximum limit
      */
     public Game(List<String> playersNameList) throws QwirkleException {
+        this(playersNameList, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructs a new Qwirkle game with the specified list of players, whose tiles are drawn from the given seed.
+     * Two games with the same players and the same seed draw the same tiles as long as the same moves are played,
+     * so a game can be replayed from its seed and its moves.
+     * @param playersNameList the list of players to participate in the game
+     * @param seed the seed of the random numbers used to draw the tiles
+     * @throws QwirkleException if the number of players exceeds the maximum limit
+     */
+    public Game(List<String> playersNameList, long seed) throws QwirkleException {
         if (playersNameList.size()>MAX_NUMBER_PLAYERS) {
             throw new QwirkleException("You can't be more than " + MAX_NUMBER_PLAYERS + " players.");
         }
@@ -38,51 +86,202 @@ public class Game implements Serializable {
         for (int i = 0; i < players.length; i++) {
             players[i] = new Player(playersNameList.get(i));
         }
+        this.seed = seed;
+        bag = new Bag(new SplitMixRandom(seed));
         grid = new Grid();
         currentPlayer = 0;
-        players[currentPlayer].refill();
+        players[currentPlayer].refill(bag);
     }
 
     /**
-     * Writes the current game state to a file using serialization.
-     * @return true if the write operation is successful, false otherwise
-     * @throws QwirkleException if there is an error while writing the file
+     * Constructs a game in the same state as the given one, whose tiles are drawn from the given bag.
+     *
+     * @param other the game to copy
+     * @param bag the bag of the copy
      */
-    public boolean write() throws QwirkleException {
-        int returnVal = fc.showSaveDialog(null);
-        if (returnVal == JFileChooser.APPROVE_OPTION) {
-            File file = fc.getSelectedFile();
-            try (var fileOutputStream = new FileOutputStream(file)) {
-                var outputStream = new ObjectOutputStream(fileOutputStream);
-                outputStream.writeObject(this);
-                return true;
-            } catch (IOException e) {
-                throw new QwirkleException("Error while writing the file, double-checked that you have " +
-                        "sufficient rights to perform this action.");
-            }
+    private Game(Game other, Bag bag) {
+        grid = other.grid.fork();
+        players = new Player[other.players.length];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = other.players[i].fork();
         }
-        return false;
+        currentPlayer = other.currentPlayer;
+        this.bag = bag;
+        seed = other.seed;
+        journal = other.journal.clone();
+        journalSize = other.journalSize;
+        randomStates = other.randomStates.clone();
+        turns = other.turns;
     }
 
     /**
-     * Reads a game state from a file using deserialization.
-     * @return the Game object read from the file
-     * @throws QwirkleException if there is an error while reading the file
+     * Constructs a game read from a saved game, whose journal is empty.
+     *
+     * @param grid          the grid of the game
+     * @param players       the players of the game
+     * @param bag           the bag of the game
+     * @param seed          the seed of the game
+     * @param currentPlayer the index of the current player
      */
-    public static Game getFromFile() throws QwirkleException {
-        int returnVal = fc.showOpenDialog(null);
-        if (returnVal == JFileChooser.APPROVE_OPTION) {
-            File file = fc.getSelectedFile();
-            try (var fileInputStream = new FileInputStream(file)) {
-                ObjectInput in = new ObjectInputStream(
-                        fileInputStream
-                );
-                return (Game) in.readObject();
-            } catch (IOException | ClassNotFoundException e) {
-                throw new QwirkleException("Error while reading the file, it may be corrupted or simply doesn't exist.");
-            }
+    private Game(Grid grid, Player[] players, Bag bag, long seed, int currentPlayer) {
+        this.grid = grid;
+        this.players = players;
+        this.bag = bag;
+        this.seed = seed;
+        this.currentPlayer = currentPlayer;
+    }
+
+    /**
+     * Returns a copy of the game that can be played without changing this game, and the other way round.
+     * The copy draws the same tiles as this game would after the same moves.
+     *
+     * @return an independent copy of the game
+     */
+    public Game fork() {
+        return new Game(this, bag.fork());
+    }
+
+    /**
+     * Returns a copy of the game that can be played without changing this game, and the other way round.
+     * The copy draws its tiles with the given source, so a search that plays on it does not learn
+     * which tiles this game will draw.
+     *
+     * @param random the source of the random numbers used to draw the tiles of the copy
+     * @return an independent copy of the game
+     */
+    public Game fork(SplitMixRandom random) {
+        return new Game(this, bag.fork(random));
+    }
+
+    /**
+     * Saves the game to a file, in the binary format of {@link GameCodec}. The file is created,
+     * or replaced if it already exists.
+     *
+     * @param path the path of the file
+     * @throws QwirkleException if the file cannot be written, or if a bot is played by a strategy that cannot be saved
+     */
+    public void save(Path path) throws QwirkleException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            GameCodec.write(this, channel);
+        } catch (IOException e) {
+            throw new QwirkleException("Error while writing the file, double-checked that you have " +
+                    "sufficient rights to perform this action.");
+        }
+    }
+
+    /**
+     * Saves the game to a stream, in the binary format of {@link GameCodec}. The stream is not closed.
+     *
+     * @param out the stream to write to
+     * @throws QwirkleException if the stream cannot be written, or if a bot is played by a strategy that cannot be saved
+     */
+    public void save(OutputStream out) throws QwirkleException {
+        try {
+            GameCodec.write(this, Channels.newChannel(out));
+        } catch (IOException e) {
+            throw new QwirkleException("Error while writing the game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads a game from a file written by {@link #save(Path)}.
+     *
+     * @param path the path of the file
+     * @return the game read from the file
+     * @throws QwirkleException if the file cannot be read or is not a saved game
+     */
+    public static Game load(Path path) throws QwirkleException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return GameCodec.read(channel);
+        } catch (IOException e) {
+            throw new QwirkleException("Error while reading the file, it may be corrupted or simply doesn't exist.");
+        }
+    }
+
+    /**
+     * Loads a game from a stream holding a game written by {@link #save(OutputStream)}, up to its end.
+     * The stream is not closed.
+     *
+     * @param in the stream to read from
+     * @return the game read from the stream
+     * @throws QwirkleException if the stream cannot be read or does not hold a saved game
+     */
+    public static Game load(InputStream in) throws QwirkleException {
+        try {
+            return GameCodec.read(Channels.newChannel(in));
+        } catch (IOException e) {
+            throw new QwirkleException("Error while reading the game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the size of the game in a saved game
+     * @throws QwirkleException if a bot is played by a strategy that cannot be saved
+     */
+    int encodedSize() throws QwirkleException {
+        var size = Long.BYTES + 2 + Bag.encodedSize() + grid.encodedSize();
+        for (Player player : players) {
+            size += player.encodedSize();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the seed, the index of the current player, the players, the bag and the grid.
+     * The journal is not written, so the turns played before cannot be undone on the game read back.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedSize()} bytes left
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(seed);
+        buffer.put((byte) currentPlayer);
+        buffer.put((byte) players.length);
+        for (Player player : players) {
+            player.writeTo(buffer);
+        }
+        bag.writeTo(buffer);
+        grid.writeTo(buffer);
+    }
+
+    /**
+     * Reads a game written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the game read
+     * @throws QwirkleException if the bytes read are not a game
+     */
+    static Game readFrom(ByteBuffer buffer) throws QwirkleException {
+        var start = buffer.position();
+        var players = readPlayersFrom(buffer);
+        var seed = buffer.getLong(start);
+        var currentPlayer = buffer.get(start + Long.BYTES);
+        var bag = Bag.readFrom(buffer);
+        return new Game(Grid.readFrom(buffer), players, bag, seed, currentPlayer);
+    }
+
+    /**
+     * Reads only the players of a game written by {@link #writeTo(ByteBuffer)}, with their names, scores and hands.
+     * The seed and the current player are checked but not kept, and the bag and the grid that follow are not read.
+     *
+     * @param buffer the buffer to read from, left after the players
+     * @return the players read
+     * @throws QwirkleException if the bytes read are not the players of a game
+     */
+    static Player[] readPlayersFrom(ByteBuffer buffer) throws QwirkleException {
+        buffer.getLong();
+        var currentPlayer = buffer.get();
+        var count = buffer.get();
+        if (count < 1 || count > MAX_NUMBER_PLAYERS || currentPlayer < 0 || currentPlayer >= count) {
+            throw new QwirkleException("The players of the saved game are corrupted.");
+        }
+        var players = new Player[count];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = Player.readFrom(buffer);
         }
-        return null;
+        return players;
     }
 
     /**
@@ -108,6 +307,17 @@ public class Game implements Serializable {
         }
         return playersScore;
     }
+    /**
+     * Returns the number of tiles in the hand of each player of the game.
+     * @return an array of hand sizes
+     */
+    public int[] getPlayersHandSize() {
+        var handSizes = new int[players.length];
+        for (int i = 0; i < players.length; i++) {
+            handSizes[i] = players[i].getHand().size();
+        }
+        return handSizes;
+    }
     /**
      * Returns the maximum number of players allowed in the game.
      * @return the maximum number of players
@@ -116,10 +326,56 @@ public class Game implements Serializable {
         return MAX_NUMBER_PLAYERS;
     }
     /**
-     * Sets the bag instance after deserialization.
+     * Returns the index of the current player.
+     *
+     * @return the index of the current player
+     */
+    int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Puts the tiles of the players other than the observer back in the bag, and draws their hands again.
+     * The observer does not know these tiles, so a search played on a fork of the game draws them again
+     * to try one of the hands the other players may hold. Each hand keeps its size. The journal is not
+     * updated, so the turns played before cannot be undone on a game whose hands were drawn again.
+     *
+     * @param observer the index of the player whose hand is kept
+     */
+    void redrawHiddenTiles(int observer) {
+        var handSizes = new int[players.length];
+        for (int i = 0; i < players.length; i++) {
+            if (i != observer) {
+                handSizes[i] = players[i].getHand().size();
+                putBackLastTiles(players[i], handSizes[i]);
+            }
+        }
+        for (int i = 0; i < players.length; i++) {
+            players[i].draw(bag, handSizes[i]);
+        }
+    }
+
+    /**
+     * Counts the tiles of each kind that the given player cannot see: the tiles of the bag and of the hands
+     * of the others. The player can count them too, as every tile that is neither on the grid nor in their
+     * hand, and each of these tiles is as likely to be the next one they draw.
+     *
+     * @param observer the index of the player
+     * @return the number of unseen tiles of each {@link Tile#kind() kind}
      */
-    public static void setBagInstanceAfterSerialization(Game game) {
-        Bag.setInstance(game.bag);
+    int[] getUnseenCounts(int observer) {
+        var counts = new int[Tile.KINDS];
+        for (int kind = 0; kind < Tile.KINDS; kind++) {
+            counts[kind] = bag.count(kind);
+        }
+        for (int i = 0; i < players.length; i++) {
+            if (i != observer) {
+                for (Tile tile : players[i].getHand()) {
+                    counts[tile.kind()]++;
+                }
+            }
+        }
+        return counts;
     }
 
     /**
@@ -140,6 +396,16 @@ public class Game implements Serializable {
         return players[currentPlayer].getHand();
     }
 
+    /**
+     * Returns the hand of the given player.
+     *
+     * @param player the index of the player
+     * @return the hand of the player
+     */
+    public List<Tile> getPlayerHand(int player) {
+        return players[player].getHand();
+    }
+
     /**
      * Returns the score of the current player.
      * @return the score of the current player
@@ -155,13 +421,21 @@ public class Game implements Serializable {
      * @param is the indices of the tiles to play from the current player's hand
      */
     public void first(Direction d, int... is) {
-        try {
-            players[currentPlayer].addScore(grid.firstAdd(d, getTileOfPlayer(is)));
-            removeTileOfPlayer(is);
-            pass();
-        } catch (QwirkleException e) {
-            throw new QwirkleException(e.getMessage());
+        MoveError.check(tryFirst(d, is));
+    }
+
+    /**
+     * Adds the specified tiles to the grid as the first play of the game, without throwing when the move is refused.
+     *
+     * @param d  the direction in which the tiles will be played
+     * @param is the indices of the tiles to play from the current player's hand
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused
+     */
+    public int tryFirst(Direction d, int... is) {
+        if (!areInHand(is)) {
+            return MoveError.NOT_IN_HAND.code();
         }
+        return endTurn(grid.tryFirstAdd(d, getTileOfPlayer(is)), is);
     }
 
     /**
@@ -172,13 +446,25 @@ public class Game implements Serializable {
      * @param index the index of the tile to play from the current player's hand
      */
     public void play(int row, int col, int index) {
-        try {
-            players[currentPlayer].addScore(grid.add(row, col, players[currentPlayer].getHand().get(index)));
-            removeTileOfPlayer(index);
-            pass();
-        } catch (QwirkleException e) {
-            throw new QwirkleException(e.getMessage());
+        var result = tryPlay(row, col, index);
+        if (result < 0) {
+            throw grid.refusal(result, row, col);
+        }
+    }
+
+    /**
+     * Adds the specified tile to the grid at the specified position, without throwing when the move is refused.
+     *
+     * @param row   the row where the tile will be placed
+     * @param col   the column where the tile will be placed
+     * @param index the index of the tile to play from the current player's hand
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused
+     */
+    public int tryPlay(int row, int col, int index) {
+        if (!areInHand(index)) {
+            return MoveError.NOT_IN_HAND.code();
         }
+        return endTurn(grid.tryAdd(row, col, players[currentPlayer].getHand().get(index)), index);
     }
 
     /**
@@ -190,15 +476,29 @@ public class Game implements Serializable {
      * @param indexes the indices of the tiles to play from the current player's hand
      */
     public void play(int row, int col, Direction d, int... indexes) {
-        try {
-            players[currentPlayer].addScore(grid.add(row, col, d, getTileOfPlayer(indexes)));
-            removeTileOfPlayer(indexes);
-            pass();
-        } catch (QwirkleException e) {
-            throw new QwirkleException(e.getMessage());
+        var result = tryPlay(row, col, d, indexes);
+        if (result < 0) {
+            throw grid.refusal(result, Grid.lineCells(row, col, d, indexes.length));
         }
     }
 
+    /**
+     * Adds the specified tiles to the grid in the specified direction starting at the specified position,
+     * without throwing when the move is refused.
+     *
+     * @param row     the row where the first tile will be placed
+     * @param col     the column where the first tile will be placed
+     * @param d       the direction in which the tiles will be played
+     * @param indexes the indices of the tiles to play from the current player's hand
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused
+     */
+    public int tryPlay(int row, int col, Direction d, int... indexes) {
+        if (!areInHand(indexes)) {
+            return MoveError.NOT_IN_HAND.code();
+        }
+        return endTurn(grid.tryAdd(row, col, d, getTileOfPlayer(indexes)), indexes);
+    }
+
     /**
      * This method allows the current player to play a set of tiles onto the game grid.
      *
@@ -211,13 +511,166 @@ public class Game implements Serializable {
      *                          or do not match the tiles already on the grid.
      */
     public void play(int... is) throws QwirkleException {
-        try {
-            players[currentPlayer].addScore(grid.add(getTileAtPosOfPlayer(is)));
-            removeTileOfPlayer(getTilesIndexes(is));
+        var result = tryPlay(is);
+        if (result < 0) {
+            var cells = new int[is.length / 3 * 2];
+            for (int i = 0; i < cells.length / 2; i++) {
+                cells[i * 2] = is[i * 3];
+                cells[i * 2 + 1] = is[i * 3 + 1];
+            }
+            throw grid.refusal(result, cells);
+        }
+    }
+
+    /**
+     * This method allows the current player to play a set of tiles onto the game grid,
+     * without throwing when the move is refused.
+     *
+     * @param is The row, the column and the index in the current player's hand of each tile, in groups of three.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused
+     */
+    public int tryPlay(int... is) {
+        if (is.length % 3 != 0) {
+            return MoveError.WRONG_ARGUMENTS.code();
+        }
+        var indexes = getTilesIndexes(is);
+        if (!areInHand(indexes)) {
+            return MoveError.NOT_IN_HAND.code();
+        }
+        return endTurn(grid.tryAdd(getTileAtPosOfPlayer(is)), indexes);
+    }
+
+    /**
+     * Plays a move found by the {@link MoveGenerator} for the current player.
+     *
+     * @param move the move to play, generated for the current hand and grid
+     * @throws QwirkleException if the move cannot be played
+     */
+    public void play(Move move) throws QwirkleException {
+        var result = tryPlay(move);
+        if (result < 0) {
+            throw grid.refusal(result, Grid.cellsOf(move.placements()));
+        }
+    }
+
+    /**
+     * Plays a move found by the {@link MoveGenerator} for the current player, without throwing when it is refused.
+     *
+     * @param move the move to play, generated for the current hand and grid
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused
+     */
+    public int tryPlay(Move move) {
+        if (grid.isEmpty()) {
+            return tryFirst(move.direction(), move.handIndexes());
+        }
+        if (move.size() == 1) {
+            var placement = move.placements()[0];
+            return tryPlay(placement.row(), placement.col(), move.handIndexes()[0]);
+        }
+        var is = new int[move.size() * 3];
+        for (int i = 0; i < move.size(); i++) {
+            is[i * 3] = move.placements()[i].row();
+            is[i * 3 + 1] = move.placements()[i].col();
+            is[i * 3 + 2] = move.handIndexes()[i];
+        }
+        return tryPlay(is);
+    }
+
+    /**
+     * Makes a player of the game a bot played by the given strategy, or a human again.
+     *
+     * @param player   the index of the player
+     * @param strategy the strategy that plays for the player, or null if the player is a human
+     */
+    public void setStrategy(int player, PlayerStrategy strategy) {
+        players[player].setStrategy(strategy);
+    }
+
+    /**
+     * Checks if the current player is a bot, whose turns are played by a strategy.
+     *
+     * @return true if the current player is a bot, false if it is a human
+     */
+    public boolean isCurrentPlayerBot() {
+        return players[currentPlayer].getStrategy() != null;
+    }
+
+    /**
+     * Plays the turn of the current player, who must be a bot: the move chosen by their strategy is played,
+     * or the turn is passed if the strategy chose none.
+     *
+     * @return the move played, or null if the bot passed
+     * @throws QwirkleException if the current player is not a bot, or if the strategy chose a move that cannot be played
+     */
+    public Move playBotTurn() throws QwirkleException {
+        var strategy = players[currentPlayer].getStrategy();
+        if (strategy == null) {
+            throw new QwirkleException("The current player is not a bot.");
+        }
+        var move = strategy.chooseMove(this);
+        if (move == null) {
             pass();
-        } catch (QwirkleException e) {
-            throw new QwirkleException(e.getMessage());
+        } else {
+            play(move);
+        }
+        return move;
+    }
+
+    /**
+     * Returns every legal move of the current player, with its score.
+     *
+     * @return the legal moves of the current player
+     */
+    public List<Move> getCurrentPlayerMoves() {
+        return new MoveGenerator(grid).generate(getCurrentPlayerHand());
+    }
+
+    /**
+     * Ends the turn of the current player if their move was accepted: the score is added, the tiles played
+     * leave the hand, which is refilled, and the next player becomes the current player.
+     * A player whose hand is empty once refilled has ended the game and wins {@value #END_BONUS} more points.
+     * Everything the turn changes is written in the journal.
+     *
+     * @param result  the result of the move on the grid
+     * @param indexes the indexes of the tiles played in the current player's hand
+     * @return the result of the move
+     */
+    private int endTurn(int result, int... indexes) {
+        if (result >= 0) {
+            var randomState = bag.getRandomState();
+            var player = players[currentPlayer];
+            for (Tile tile : getTileOfPlayer(indexes)) {
+                writeDown(player.removeTile(tile));
+                writeDown(tile.kind());
+            }
+            var drawn = player.refill(bag);
+            var points = player.getHand().isEmpty() ? result + END_BONUS : result;
+            player.addScore(points);
+            writeDown(indexes.length);
+            writeDown(points);
+            writeDown(drawn);
+            nextPlayer(randomState);
+            if (moveJournal != null) {
+                moveJournal.recordTurn(indexes.length);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the given indexes designate tiles of the current player's hand.
+     *
+     * @param indexes the indexes to check
+     * @return true if every index is in the hand, false otherwise
+     */
+    private boolean areInHand(int... indexes) {
+        var handSize = players[currentPlayer].getHand().size();
+        for (int index : indexes) {
+            if (index < 0 || index >= handSize) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
@@ -225,33 +678,158 @@ public class Game implements Serializable {
      * After calling this method, the next player will become the current player.
      */
     public void pass() {
+        var randomState = bag.getRandomState();
+        writeDown(0);
+        writeDown(0);
+        writeDown(0);
+        nextPlayer(randomState);
+        if (moveJournal != null) {
+            moveJournal.recordTurn(0);
+        }
+    }
+
+    /**
+     * Makes the next player the current player and refills their hand, and closes the entry of the turn
+     * in the journal.
+     *
+     * @param randomState the state of the source of random numbers of the bag at the start of the turn
+     */
+    private void nextPlayer(long randomState) {
+        var previous = currentPlayer;
         currentPlayer = ++currentPlayer % players.length;
-        players[currentPlayer].refill();
+        writeDown(players[currentPlayer].refill(bag));
+        writeDown(previous);
+        if (turns == randomStates.length) {
+            randomStates = Arrays.copyOf(randomStates, turns * 2);
+        }
+        randomStates[turns++] = randomState;
+    }
+
+    /**
+     * Takes back the last turn played, a move or a pass: the tiles drawn go back to the bag, the tiles played
+     * go back to their place in the hand and leave the grid, the points won are removed, and the player of
+     * that turn becomes the current player again. The bag draws the same tiles again if the same move is
+     * played. Turns can be undone one after the other, back to the start of the game.
+     *
+     * @throws QwirkleException if no turn is left to undo
+     */
+    public void undo() throws QwirkleException {
+        if (turns == 0) {
+            throw new QwirkleException("There is no turn to undo.");
+        }
+        var previous = readBack();
+        putBackLastTiles(players[currentPlayer], readBack());
+        currentPlayer = previous;
+        var player = players[currentPlayer];
+        putBackLastTiles(player, readBack());
+        player.addScore(-readBack());
+        var played = readBack();
+        for (int i = 0; i < played; i++) {
+            var kind = readBack();
+            player.insertTile(readBack(), Tile.ofKind(kind));
+        }
+        if (played > 0) {
+            grid.undo();
+        }
+        bag.setRandomState(randomStates[--turns]);
+        if (moveJournal != null) {
+            moveJournal.recordUndo();
+        }
+    }
+
+    /**
+     * Returns the journal file where the turns of the game are written down.
+     *
+     * @return the journal of the game, or null if it has none
+     */
+    MoveJournal getMoveJournal() {
+        return moveJournal;
+    }
+
+    /**
+     * Sets the journal file where the turns of the game are written down, which {@link MoveJournal} does
+     * when it is created or closed.
+     *
+     * @param moveJournal the journal of the game, or null to stop writing its turns
+     */
+    void setMoveJournal(MoveJournal moveJournal) {
+        this.moveJournal = moveJournal;
+    }
+
+    /**
+     * Returns the number of turns played that can be undone.
+     *
+     * @return the number of turns in the journal
+     */
+    public int getTurnCount() {
+        return turns;
+    }
+
+    /**
+     * Puts the last tiles drawn by a player back in the bag.
+     *
+     * @param player the player who drew the tiles
+     * @param count  the number of tiles drawn
+     */
+    private void putBackLastTiles(Player player, int count) {
+        for (int i = 0; i < count; i++) {
+            bag.putBack(player.removeLastTile());
+        }
     }
 
     /**
-     * Checks if the game is over.
+     * Writes a value at the end of the journal.
+     *
+     * @param value the value to write
+     */
+    private void writeDown(int value) {
+        if (journalSize == journal.length) {
+            journal = Arrays.copyOf(journal, journalSize * 2);
+        }
+        journal[journalSize++] = value;
+    }
+
+    /**
+     * Reads the last value of the journal and removes it.
+     *
+     * @return the last value of the journal
+     */
+    private int readBack() {
+        return journal[--journalSize];
+    }
+
+    /**
+     * Checks if the game is over. The game can only end once the bag is empty,
+     * so the hands are only looked at when there is no tile left to draw.
+     * The game is over when the previous player has played all their tiles, or when nobody can play.
      * @return true if the game is over, false otherwise
      */
     public boolean isOver() {
-        if (players[getPreviousPlayer()].getHand().isEmpty() && isBagEmpty()) {
-            players[getPreviousPlayer()].addScore(7);
+        if (!isBagEmpty()) {
+            return false;
+        }
+        if (players[getPreviousPlayer()].getHand().isEmpty()) {
             return true;
-        } else return !atLeastOnePlayerCanPlay() && isBagEmpty();
+        }
+        return !atLeastOnePlayerCanPlay();
     }
     /**
-     * Checks if at least one player cannot play any tiles.
-     * @return true if at least one player cannot play any tiles, false otherwise
+     * Checks if at least one player can play a tile. A tile can only be placed on an anchor of the grid,
+     * so the kinds accepted by all the anchors are gathered once and each tile of the hands is checked against them.
+     * @return true if at least one player can play a tile, false otherwise
      */
     private boolean atLeastOnePlayerCanPlay() {
+        if (grid.isEmpty()) {
+            return true;
+        }
+        var playableKinds = 0L;
+        for (int i = 0; i < grid.getAnchorCount(); i++) {
+            playableKinds |= grid.getAnchorKinds(i);
+        }
         for (Player player : players) {
             for (Tile tile : player.getHand()) {
-                for (int row = 0; row < grid.getGRID_SIZE(); row++) {
-                    for (int col = 0; col < grid.getGRID_SIZE(); col++) {
-                        if (grid.canAdd(row, col, tile)) {
-                            return true;
-                        }
-                    }
+                if ((playableKinds >>> tile.kind() & 1) != 0) {
+                    return true;
                 }
             }
         }
@@ -263,7 +841,7 @@ public class Game implements Serializable {
      * @return the index of the previous player
      */
     private int getPreviousPlayer() {
-        return currentPlayer - 1 > 0 ? currentPlayer - 1 : players.length - 1;
+        return (currentPlayer + players.length - 1) % players.length;
     }
     /**
      * Checks if the bag is empty.
@@ -273,6 +851,48 @@ public class Game implements Serializable {
         return bag.size()==0;
     }
 
+    /**
+     * Returns the seed from which the tiles of the game are drawn.
+     *
+     * @return the seed of the game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the Zobrist key of the position of the game: the tiles of the grid, and, when asked for,
+     * the hands of the players, the tiles left in the bag and the player to play. The key of the grid is kept
+     * up to date at each move, and the other parts take a few steps, so the key is cheap enough to be asked for
+     * at each node of a search. The scores are not part of the key.
+     *
+     * @param withHands whether the hands of the players and the player to play are part of the key
+     * @param withBag   whether the tiles left in the bag are part of the key
+     * @return the Zobrist key of the position
+     */
+    public long getZobristKey(boolean withHands, boolean withBag) {
+        var key = grid.getZobristKey();
+        if (withHands) {
+            for (int i = 0; i < players.length; i++) {
+                key ^= players[i].getHandKey(i);
+            }
+            key ^= Zobrist.toPlay(currentPlayer);
+        }
+        if (withBag) {
+            key ^= bag.getZobristKey();
+        }
+        return key;
+    }
+
+    /**
+     * Returns the number of tiles left in the bag of the game.
+     *
+     * @return the number of tiles left in the bag
+     */
+    public int getBagSize() {
+        return bag.size();
+    }
+
     /**
      * Returns the grid of the Qwirkle game.
      *
@@ -305,9 +925,6 @@ public class Game implements Serializable {
      * @return An array of TileAtPosition objects representing the tiles to be played by the current player.
      */
     private TileAtPosition[] getTileAtPosOfPlayer(int... is) {
-        if (is.length % 3 != 0) {
-            throw new QwirkleException("The number of arguments is incorrect. Please try again.");
-        }
         var tilesAtPos = new TileAtPosition[is.length / 3];
         for (int i = 0; i < is.length / 3; i++) {
             tilesAtPos[i] = new TileAtPosition(
@@ -334,14 +951,4 @@ public class Game implements Serializable {
         return tilesIndexes;
     }
 
-    /**
-     * Removes the tiles at the specified indexes from the current player's hand,
-     * and refills the hand with new tiles from the bag if necessary.
-     *
-     * @param is The indexes of the tiles to be removed from the current player's hand.
-     */
-    private void removeTileOfPlayer(int... is) {
-        players[currentPlayer].removeTilesFromHand(getTileOfPlayer(is));
-        players[currentPlayer].refill();
-    }
 }
@@ -0,0 +1,373 @@
+package g60904.qwirkle.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The GameArchive class keeps many games, usually finished ones, in two append-only files: a data file with the
+ * games one after the other, and an index file with the offset where each game ends.
+ * <p>
+ * Each game of the data file is written in the binary format of {@link GameCodec}, after the header of the archive:
+ * the magic number {@code QWKA} and the version of the format. The index file, named as the data file with
+ * {@code .index} added, starts with the magic number {@code QWKI}, the version and three bytes of padding, and then
+ * holds, for each game, the offset of its end in the data file as a long. A game starts where the one before ends.
+ * <p>
+ * Both files are read through memory maps: the index is mapped whole, and the data file by windows of
+ * {@value #WINDOW_SIZE} bytes, each mapped with {@value #MAX_RECORD_SIZE} more bytes so that a game starting in a
+ * window always ends in it. Reading the game N reads its two offsets in the index and decodes its bytes in the
+ * window, and nothing else is read. Reading the results of every game reads the data file from its start to its end
+ * and skips the bag and the grid of each game, so it goes at the speed of the disk, which the system reads ahead.
+ * The windows are mapped the first time they are read, and mapped again when games were added to them.
+ * <p>
+ * A game is added by writing it at the end of the data file and then its offset at the end of the index.
+ * The files are forced to the disk by {@link #flush()} and {@link #close()}. When the archive is opened after
+ * a crash, the offsets beyond the end of the data file are dropped, and the bytes after the last game of
+ * the index too. An archive is used by one thread at a time.
+ */
+public final class GameArchive implements Closeable {
+    /**
+     * The first four bytes of the data file, "QWKA" in ASCII.
+     */
+    static final int DATA_MAGIC = 0x51574B41;
+    /**
+     * The first four bytes of the index file, "QWKI" in ASCII.
+     */
+    static final int INDEX_MAGIC = 0x51574B49;
+    /**
+     * The version of the format written.
+     */
+    static final byte VERSION = 1;
+    /**
+     * The number of bytes of the data file where the games of a window start.
+     */
+    static final int WINDOW_SIZE = 1 << 30;
+    /**
+     * The largest number of bytes of a game in the archive.
+     */
+    static final int MAX_RECORD_SIZE = 1 << 16;
+    private static final int DATA_HEADER_SIZE = Integer.BYTES + 1;
+    private static final int INDEX_HEADER_SIZE = Long.BYTES;
+    private static final long MAX_GAMES = (Integer.MAX_VALUE - INDEX_HEADER_SIZE) / Long.BYTES;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final List<MappedByteBuffer> windows = new ArrayList<>();
+    private final ByteBuffer offsetBuffer = ByteBuffer.allocate(Long.BYTES);
+    private MappedByteBuffer indexMap;
+    private long gameCount;
+    private long dataEnd;
+
+    /**
+     * The result of a game of the archive, read without reading the whole game.
+     *
+     * @param number the number of the game in the archive
+     * @param names  the names of the players
+     * @param scores the scores of the players, in the order of their names
+     */
+    public record Result(long number, String[] names, int[] scores) {
+    }
+
+    /**
+     * Constructs an archive on its open files.
+     *
+     * @param data      the data file, whose games are all in the index
+     * @param index     the index file, with an offset for each game
+     * @param gameCount the number of games of the archive
+     * @param dataEnd   the end of the last game in the data file
+     */
+    private GameArchive(FileChannel data, FileChannel index, long gameCount, long dataEnd) {
+        this.data = data;
+        this.index = index;
+        this.gameCount = gameCount;
+        this.dataEnd = dataEnd;
+    }
+
+    /**
+     * Opens the archive of the given data file, or creates it if it does not exist yet.
+     * The bytes written by an addition that a crash stopped are removed.
+     *
+     * @param path the path of the data file, the index file being next to it
+     * @return the archive opened
+     * @throws QwirkleException if the files cannot be read or written, or are not an archive of this version
+     */
+    public static GameArchive open(Path path) throws QwirkleException {
+        FileChannel data = null;
+        FileChannel index = null;
+        try {
+            data = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            index = FileChannel.open(path.resolveSibling(path.getFileName() + ".index"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (data.size() == 0 && index.size() == 0) {
+                writeFully(data, ByteBuffer.allocate(DATA_HEADER_SIZE).putInt(DATA_MAGIC).put(VERSION).flip(), 0);
+                writeFully(index, ByteBuffer.allocate(INDEX_HEADER_SIZE).putInt(INDEX_MAGIC).put(VERSION).rewind(), 0);
+            }
+            var dataHeader = readFully(data, 0, DATA_HEADER_SIZE);
+            var indexHeader = readFully(index, 0, INDEX_HEADER_SIZE);
+            if (dataHeader.getInt() != DATA_MAGIC || dataHeader.get() != VERSION
+                    || indexHeader.getInt() != INDEX_MAGIC || indexHeader.get() != VERSION) {
+                throw new QwirkleException("The files are not an archive of games of this version.");
+            }
+            var gameCount = (index.size() - INDEX_HEADER_SIZE) / Long.BYTES;
+            var dataEnd = (long) DATA_HEADER_SIZE;
+            while (gameCount > 0) {
+                dataEnd = readFully(index, offsetOf(gameCount - 1), Long.BYTES).getLong();
+                if (dataEnd <= data.size()) {
+                    break;
+                }
+                gameCount--;
+                dataEnd = DATA_HEADER_SIZE;
+            }
+            index.truncate(offsetOf(gameCount));
+            data.truncate(dataEnd);
+            return new GameArchive(data, index, gameCount, dataEnd);
+        } catch (IOException | QwirkleException e) {
+            closeQuietly(data);
+            closeQuietly(index);
+            if (e instanceof QwirkleException qwirkleException) {
+                throw qwirkleException;
+            }
+            throw new QwirkleException("Error while opening the archive of games: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of games of the archive.
+     *
+     * @return the number of games
+     */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Adds a game at the end of the archive. It is on the disk once the archive is flushed or closed.
+     *
+     * @param game the game to add
+     * @return the number of the game in the archive, from 0
+     * @throws QwirkleException if the files cannot be written or the archive is full
+     */
+    public long append(Game game) throws QwirkleException {
+        if (gameCount == MAX_GAMES) {
+            throw new QwirkleException("The archive is full, a new archive must be opened.");
+        }
+        var bytes = GameCodec.encode(game);
+        if (bytes.remaining() > MAX_RECORD_SIZE) {
+            throw new QwirkleException("The game is too large to be archived.");
+        }
+        try {
+            var end = dataEnd + bytes.remaining();
+            writeFully(data, bytes, dataEnd);
+            writeFully(index, offsetBuffer.clear().putLong(end).flip(), offsetOf(gameCount));
+            dataEnd = end;
+        } catch (IOException e) {
+            throw new QwirkleException("Error while adding a game to the archive: " + e.getMessage());
+        }
+        return gameCount++;
+    }
+
+    /**
+     * Reads a game of the archive from the maps of the files, without reading the other games.
+     *
+     * @param number the number of the game, from 0
+     * @return the game read
+     * @throws QwirkleException if there is no game of that number, or it cannot be read
+     */
+    public Game get(long number) throws QwirkleException {
+        if (number < 0 || number >= gameCount) {
+            throw new QwirkleException("The archive has no game " + number + ", it has " + gameCount + " games.");
+        }
+        return GameCodec.decode(record(number));
+    }
+
+    /**
+     * Reads every game of the archive, in the order they were added. Each game is read whole, its grid being
+     * built again tile by tile, which takes much longer than reading its bytes: {@link #forEachResult(Consumer)}
+     * is the one to use when only the results of the games are needed.
+     *
+     * @param action the action done with each game read
+     * @throws QwirkleException if a game cannot be read
+     */
+    public void forEach(Consumer<Game> action) throws QwirkleException {
+        for (long number = 0; number < gameCount; number++) {
+            action.accept(get(number));
+        }
+    }
+
+    /**
+     * Reads the result of every game of the archive, in the order they were added. Only the players of each game
+     * are read, and its bag and its grid are skipped thanks to the index, so the archive is read as fast as the disk
+     * gives its bytes.
+     *
+     * @param action the action done with the result of each game
+     * @throws QwirkleException if a game cannot be read
+     */
+    public void forEachResult(Consumer<Result> action) throws QwirkleException {
+        for (long number = 0; number < gameCount; number++) {
+            var players = GameCodec.decodePlayers(record(number));
+            var names = new String[players.length];
+            var scores = new int[players.length];
+            for (int i = 0; i < players.length; i++) {
+                names[i] = players[i].getName();
+                scores[i] = players[i].getScore();
+            }
+            action.accept(new Result(number, names, scores));
+        }
+    }
+
+    /**
+     * Returns the bytes of a game in the map of its window of the data file.
+     *
+     * @param number the number of the game, which must be in the archive
+     * @return the bytes of the game, from the header of its saved game to its end
+     * @throws QwirkleException if the files cannot be mapped
+     */
+    private ByteBuffer record(long number) throws QwirkleException {
+        try {
+            var start = number == 0 ? DATA_HEADER_SIZE : endOf(number - 1);
+            var end = endOf(number);
+            var window = window((int) (start / WINDOW_SIZE), end);
+            var windowStart = start / WINDOW_SIZE * WINDOW_SIZE;
+            return window.slice((int) (start - windowStart), (int) (end - start));
+        } catch (IOException e) {
+            throw new QwirkleException("Error while reading the archive of games: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forces the games added to the disk.
+     *
+     * @throws QwirkleException if the files cannot be written
+     */
+    public void flush() throws QwirkleException {
+        try {
+            data.force(false);
+            index.force(false);
+        } catch (IOException e) {
+            throw new QwirkleException("Error while writing the archive of games: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forces the games added to the disk and closes the files. The maps are released by the garbage collector.
+     *
+     * @throws QwirkleException if the files cannot be written
+     */
+    @Override
+    public void close() throws QwirkleException {
+        try {
+            flush();
+        } finally {
+            windows.clear();
+            indexMap = null;
+            closeQuietly(data);
+            closeQuietly(index);
+        }
+    }
+
+    /**
+     * Returns the offset where a game ends in the data file, from the map of the index,
+     * which is mapped again if games were added to it.
+     *
+     * @param number the number of the game
+     * @return the end of the game
+     * @throws IOException if the index cannot be mapped
+     */
+    private long endOf(long number) throws IOException {
+        var position = (int) offsetOf(number);
+        if (indexMap == null || indexMap.capacity() < position + Long.BYTES) {
+            indexMap = index.map(FileChannel.MapMode.READ_ONLY, 0, offsetOf(gameCount));
+        }
+        return indexMap.getLong(position);
+    }
+
+    /**
+     * Returns the map of a window of the data file that reaches the given offset, mapping it if it was not yet,
+     * or if it was mapped before the games that reach that offset were added.
+     *
+     * @param number the number of the window
+     * @param end    the offset the map must reach
+     * @return the map of the window
+     * @throws IOException if the data file cannot be mapped
+     */
+    private MappedByteBuffer window(int number, long end) throws IOException {
+        while (windows.size() <= number) {
+            windows.add(null);
+        }
+        var start = (long) number * WINDOW_SIZE;
+        var window = windows.get(number);
+        if (window == null || start + window.capacity() < end) {
+            var size = Math.min(dataEnd, start + WINDOW_SIZE + MAX_RECORD_SIZE) - start;
+            window = data.map(FileChannel.MapMode.READ_ONLY, start, size);
+            windows.set(number, window);
+        }
+        return window;
+    }
+
+    /**
+     * Returns the position in the index file of the offset of a game.
+     *
+     * @param number the number of the game
+     * @return the position of its offset
+     */
+    private static long offsetOf(long number) {
+        return INDEX_HEADER_SIZE + number * Long.BYTES;
+    }
+
+    /**
+     * Writes every byte of a buffer to a file at the given position.
+     *
+     * @param channel  the file to write to
+     * @param buffer   the bytes to write
+     * @param position the position in the file of the first byte
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Reads the given number of bytes of a file at the given position.
+     *
+     * @param channel  the file to read from
+     * @param position the position in the file of the first byte
+     * @param size     the number of bytes to read
+     * @return the bytes read, ready to be read
+     * @throws IOException      if the file cannot be read
+     * @throws QwirkleException if the file ends before
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        var buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            var read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new QwirkleException("The files are not an archive of games of this version.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Closes a file, ignoring the error, as the error that made it close matters more.
+     *
+     * @param channel the file to close, or null
+     */
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the file is left to the system
+            }
+        }
+    }
+}
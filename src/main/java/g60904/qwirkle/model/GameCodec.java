@@ -0,0 +1,152 @@
+package g60904.qwirkle.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The GameCodec class writes a game in a compact binary format, and reads it back, through NIO channels.
+ * <p>
+ * A saved game starts with a header: the magic number {@code QWKL} and the version of the format. The game follows,
+ * each part written by its own class: the seed and the current player ({@link Game}), each player with their name,
+ * score, strategy and hand ({@link Player}), the count of each kind of tile left in the bag and the state and
+ * the gamma of its source of random numbers ({@link Bag}), and the limits of the grid with only its tiles, each as
+ * a packed cell and a kind ({@link Grid}). Numbers are written big-endian. A game of a hundred tiles takes less than
+ * a kilobyte.
+ * <p>
+ * The journal of the turns played is not saved, so the game read back cannot undo them. It draws the same tiles
+ * as the game saved would have, even a game forked with its own source of random numbers.
+ */
+final class GameCodec {
+    /**
+     * The first four bytes of a saved game, "QWKL" in ASCII.
+     */
+    static final int MAGIC = 0x51574B4C;
+    /**
+     * The version of the format written. The version 2 saves the gamma of the source of random numbers of the bag,
+     * and the version 3 saves which strategy plays for each bot, with its settings.
+     */
+    static final byte VERSION = 3;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    private static final int READ_CHUNK = 4096;
+
+    /**
+     * Prevents the class from being instantiated.
+     */
+    private GameCodec() {
+    }
+
+    /**
+     * Writes a game to a channel: the header and then the game, in a single buffer.
+     *
+     * @param game    the game to write
+     * @param channel the channel to write to, which is not closed
+     * @throws IOException if the channel cannot be written
+     */
+    static void write(Game game, WritableByteChannel channel) throws IOException {
+        var buffer = encode(game);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes a game in a new buffer: the header and then the game.
+     *
+     * @param game the game to write
+     * @return the buffer holding the saved game, ready to be read
+     * @throws QwirkleException if a bot of the game is played by a strategy that cannot be saved
+     */
+    static ByteBuffer encode(Game game) throws QwirkleException {
+        var buffer = ByteBuffer.allocate(HEADER_SIZE + game.encodedSize());
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        game.writeTo(buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Reads a game from a channel, up to its end.
+     *
+     * @param channel the channel to read from, which is not closed
+     * @return the game read
+     * @throws IOException      if the channel cannot be read
+     * @throws QwirkleException if the bytes read are not a saved game of this version
+     */
+    static Game read(ReadableByteChannel channel) throws IOException, QwirkleException {
+        return decode(readAll(channel));
+    }
+
+    /**
+     * Reads a game from a buffer holding a saved game, from its position to its limit.
+     *
+     * @param buffer the buffer to read from
+     * @return the game read
+     * @throws QwirkleException if the bytes read are not a saved game of this version
+     */
+    static Game decode(ByteBuffer buffer) throws QwirkleException {
+        try {
+            readHeader(buffer);
+            var game = Game.readFrom(buffer);
+            if (buffer.hasRemaining()) {
+                throw new QwirkleException("The saved game is followed by unknown bytes.");
+            }
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new QwirkleException("The saved game is cut short.");
+        }
+    }
+
+    /**
+     * Reads only the players of a saved game, without reading its bag and its grid, which is much faster
+     * than reading the whole game when only the names and the scores are needed.
+     *
+     * @param buffer the buffer to read from, holding a saved game from its position
+     * @return the players of the saved game
+     * @throws QwirkleException if the bytes read do not start with a saved game of this version
+     */
+    static Player[] decodePlayers(ByteBuffer buffer) throws QwirkleException {
+        try {
+            readHeader(buffer);
+            return Game.readPlayersFrom(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new QwirkleException("The saved game is cut short.");
+        }
+    }
+
+    /**
+     * Reads the header of a saved game and checks its magic number and its version.
+     *
+     * @param buffer the buffer to read from, left after the header
+     * @throws QwirkleException if the header is not the one of a saved game of this version
+     */
+    private static void readHeader(ByteBuffer buffer) throws QwirkleException {
+        if (buffer.getInt() != MAGIC) {
+            throw new QwirkleException("The file is not a saved game.");
+        }
+        var version = buffer.get();
+        if (version != VERSION) {
+            throw new QwirkleException("The saved game has the version " + version
+                    + " of the format, only the version " + VERSION + " can be read.");
+        }
+    }
+
+    /**
+     * Reads every byte of a channel, up to its end, into a buffer ready to be read.
+     *
+     * @param channel the channel to read from
+     * @return the buffer holding the bytes read
+     * @throws IOException if the channel cannot be read
+     */
+    private static ByteBuffer readAll(ReadableByteChannel channel) throws IOException {
+        var buffer = ByteBuffer.allocate(READ_CHUNK);
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+            }
+        }
+        return buffer.flip();
+    }
+}
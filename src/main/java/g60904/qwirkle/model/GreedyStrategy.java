@@ -0,0 +1,24 @@
+package g60904.qwirkle.model;
+
+/**
+ * A strategy that always plays the legal move that scores the most points, and only passes when it cannot play.
+ * When several moves score the most points, the first one found by the {@link MoveGenerator} is played.
+ */
+public class GreedyStrategy implements PlayerStrategy {
+    /**
+     * Chooses the legal move of the current player that scores the most points.
+     *
+     * @param game the game, whose current player is the one to play
+     * @return the move that scores the most points, or {@code null} if the current player cannot play
+     */
+    @Override
+    public Move chooseMove(Game game) {
+        Move best = null;
+        for (Move move : game.getCurrentPlayerMoves()) {
+            if (best == null || move.score() > best.score()) {
+                best = move;
+            }
+        }
+        return best;
+    }
+}
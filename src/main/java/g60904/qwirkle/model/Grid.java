@@ -1,38 +1,126 @@
 package g60904.qwirkle.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
- * The Grid class represents the game board of Qwirkle. It contains a 2D array of Tiles
- * which represents the board tiles and a boolean flag indicating if the grid is empty.
+ * The Grid class represents the game board of Qwirkle. The board has no edge: each cell is stored as a single
+ * byte in a {@link ChunkedBoard} that only allocates the 16x16 chunks where tiles are placed, and is addressed
+ * by its position relative to the first tile, which is placed at ({@value #ORIGIN_ROW}, {@value #ORIGIN_COL}).
+ * A cell holds 0 when it is empty, the kind of its tile plus one otherwise. The tiles themselves are kept apart,
+ * one slot per placed tile, so that {@link #get(int, int)} returns the very instance that was placed.
+ * The grid also keeps its anchors up to date: the empty cells next to a tile, each with the mask of the kinds
+ * of tiles that can be placed there alone, so that {@link #canAdd(int, int, Tile)} is a single bit test.
+ * It also holds a boolean flag indicating if the grid is empty.
  * It contains an actualLimits attribute, which is an array of 4 integers representing
  * the size limits used in the game board. The first element (index 0) indicates the maximum row,
  * the second element (index 1) indicates the minimum col, the third element (index 2) indicates
  * the min row, and the fourth element (index 3) indicates the maximum column.
+ * <p>
+ * The grid keeps a Zobrist key of its tiles, the exclusive or of a random key for each tile on its cell, which two
+ * grids holding the same tiles on the same cells share whatever the order of their moves. It is updated each time
+ * a tile is placed or removed, so it can be used at once to look a position up in a table.
+ * <p>
+ * Every move placed on the grid is written down in a journal, with the number of its tiles and the limits
+ * and empty flag it changed, so that {@link #undo()} takes the last moves back one by one. A search can then
+ * play a move, look at the grid and undo it, without copying the grid.
  */
 public class Grid implements Serializable {
-    private final Tile[][] tiles;
+    /**
+     * The row where the first tile of the game is placed.
+     */
+    public static final int ORIGIN_ROW = 45;
+    /**
+     * The column where the first tile of the game is placed.
+     */
+    public static final int ORIGIN_COL = 45;
+    /**
+     * The number of ints written in the journal for each move: the number of its tiles,
+     * the four limits and the empty flag of the grid before the move.
+     */
+    private static final int JOURNAL_ENTRY = 6;
+    /**
+     * The steps from a packed cell to its four neighbours.
+     */
+    private static final int[] NEIGHBOUR_STEPS = {1, -1, ChunkedBoard.ROW_STRIDE, -ChunkedBoard.ROW_STRIDE};
+    private final ChunkedBoard cells;
+    private final CellSlots tileSlots;
+    private Tile[] placedTiles;
+    private int[] placedCells;
+    private int placedCount;
+    private long[] rowLines;
+    private long[] colLines;
+    private final CellSlots anchorSlots;
+    private int[] anchorCells;
+    private long[] anchorKinds;
+    private int anchorCount;
+    private final ScoreCalculator scores;
     private boolean isEmpty;
     private final int[] actualLimits;
-    private final int GRID_SIZE = 91;
+    private int[] journal;
+    private int journalSize;
+    private long zobristKey;
 
     /**
-     * Constructs a new Grid instance with a 91x91 2D array of Tiles and initializes
-     * the isEmpty flag to true.
+     * Constructs a new empty Grid and initializes the isEmpty flag to true.
+     * No cell is allocated until tiles are placed.
      */
     public Grid() {
-        tiles = new Tile[GRID_SIZE][GRID_SIZE];
+        cells = new ChunkedBoard();
+        tileSlots = new CellSlots();
+        placedTiles = new Tile[32];
+        placedCells = new int[32];
+        rowLines = new long[32];
+        colLines = new long[32];
+        anchorSlots = new CellSlots();
+        anchorCells = new int[32];
+        anchorKinds = new long[32];
+        scores = new ScoreCalculator();
         isEmpty = true;
         actualLimits = new int[]{46, 44, 44, 46};
+        journal = new int[JOURNAL_ENTRY * 32];
+    }
+
+    /**
+     * Constructs a grid holding the same tiles, anchors and limits as the given one.
+     *
+     * @param other the grid to copy
+     */
+    private Grid(Grid other) {
+        cells = new ChunkedBoard(other.cells);
+        tileSlots = new CellSlots(other.tileSlots);
+        placedTiles = other.placedTiles.clone();
+        placedCells = other.placedCells.clone();
+        placedCount = other.placedCount;
+        rowLines = other.rowLines.clone();
+        colLines = other.colLines.clone();
+        anchorSlots = new CellSlots(other.anchorSlots);
+        anchorCells = other.anchorCells.clone();
+        anchorKinds = other.anchorKinds.clone();
+        anchorCount = other.anchorCount;
+        scores = new ScoreCalculator();
+        isEmpty = other.isEmpty;
+        actualLimits = other.actualLimits.clone();
+        journal = other.journal.clone();
+        journalSize = other.journalSize;
+        zobristKey = other.zobristKey;
+    }
+
+    /**
+     * Returns a copy of the grid that can be played on without changing this grid, and the other way round.
+     * Only a few flat arrays are copied, so a grid can be forked thousands of times per second
+     * to try moves on it.
+     *
+     * @return an independent copy of the grid
+     */
+    public Grid fork() {
+        return new Grid(this);
     }
 
     /**
      * Adds a line of Tiles to the Grid in a given direction (horizontal or vertical)
-     * starting from the center of the grid. Throws a QwirkleException if the grid is not
+     * starting from the origin of the grid. Throws a QwirkleException if the grid is not
      * empty or if the added Tiles do not comply with the Qwirkle game rules.
      *
      * @param d    The direction in which the line of Tiles is added (horizontal or vertical).
@@ -41,42 +129,45 @@ public class Grid implements Serializable {
      *                          Tiles do not comply with the Qwirkle game rules.
      */
     public int firstAdd(Direction d, Tile... line) throws QwirkleException {
+        return MoveError.check(tryFirstAdd(d, line));
+    }
+
+    /**
+     * Adds a line of Tiles to the Grid in a given direction starting from the origin of the grid,
+     * without throwing when the move is refused.
+     *
+     * @param d    The direction in which the line of Tiles is added.
+     * @param line An array of Tiles representing the line of Tiles to add to the Grid.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
+     */
+    public int tryFirstAdd(Direction d, Tile... line) {
         if (!isEmpty) {
-            throw new QwirkleException("This method can only be called when the Grid is empty.");
+            return MoveError.GRID_NOT_EMPTY.code();
         }
-        if (line.length > 1) {
-            addTiles(45, 45, d, line);
-            if (!moveRespectRules(45, 45)) {
-                removeTiles(45, 45, d, line.length);
-                throw new QwirkleException("Tiles doesn't respect rules, no tile have been placed");
-            }
-        } else {
-            addTile(45, 45, line[0]);
+        var result = addTiles(ORIGIN_ROW, ORIGIN_COL, d, line);
+        if (result < 0) {
+            return result;
         }
-        modifyLimits(d, line.length, 45, 45);
+        writeDown(line.length);
+        modifyLimits(d, line.length, ORIGIN_ROW, ORIGIN_COL);
         isEmpty = false;
-        return calculatePoint(45, 45);
+        return scores.score(d.getDeltaRow() == 0);
     }
+
     /**
      * Checks if a Tile can be added to the Grid at the specified position.
+     * Only the anchors can receive a tile, and each one already knows which kinds of tiles it accepts.
      *
      * @param row The row index of the position.
      * @param col The column index of the position.
      * @return {@code true} if the Tile can be added at the specified position, {@code false} otherwise.
      */
     public boolean canAdd(int row, int col, Tile tile) {
-        if (tiles[row][col] == null) {
-            addTile(row, col, tile);
-            if (moveRespectRules(row, col)) {
-                removeTile(row, col);
-                return true;
-            } else {
-                removeTile(row, col);
-                return false;
-            }
-        } else {
+        if (!isInside(row, col)) {
             return false;
         }
+        var slot = anchorSlots.get(index(row, col));
+        return slot >= 0 && (anchorKinds[slot] >>> tile.kind() & 1) != 0;
     }
 
     /**
@@ -90,19 +181,44 @@ public class Grid implements Serializable {
      *                          attributes not matching with the given tile.
      */
     public int add(int row, int col, Tile tile) throws QwirkleException {
-        if (isEmpty()) {
-            throw new QwirkleException("You need to use first add to do the first move");
+        var result = tryAdd(row, col, tile);
+        if (result < 0) {
+            throw refusal(result, row, col);
         }
-        if (tiles[row][col] != null) {
-            throw new QwirkleException("This position (" + row + ", " + col + ") already contain a tile");
+        return result;
+    }
+
+    /**
+     * Adds a tile to the specified position on the game board, without throwing when the move is refused.
+     *
+     * @param row  The row index of the position where the tile is to be added.
+     * @param col  The column index of the position where the tile is to be added.
+     * @param tile The tile to be added to the game board.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
+     */
+    public int tryAdd(int row, int col, Tile tile) {
+        var result = placeTile(row, col, tile);
+        if (result >= 0) {
+            writeDown(1);
+            modifyLimits(row, col);
         }
-        addTile(row, col, tile);
-        if (!moveRespectRules(row, col)) {
+        return result;
+    }
+
+    /**
+     * Computes the score a tile would make at the specified position, leaving the game board as it was.
+     *
+     * @param row  The row index of the position.
+     * @param col  The column index of the position.
+     * @param tile The tile to be checked.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it would be refused.
+     */
+    public int validate(int row, int col, Tile tile) {
+        var result = placeTile(row, col, tile);
+        if (result >= 0) {
             removeTile(row, col);
-            throw new QwirkleException("Tiles doesn't respect rules, no tile have been placed");
         }
-        modifyLimits(row, col);
-        return calculatePoint(row, col);
+        return result;
     }
 
     /**
@@ -116,16 +232,48 @@ public class Grid implements Serializable {
      *                          if a position already contains a tile
      */
     public int add(int row, int col, Direction d, Tile... line) throws QwirkleException {
-        if (isEmpty()) {
-            throw new QwirkleException("You need to use first add to do the first move");
+        var result = tryAdd(row, col, d, line);
+        if (result < 0) {
+            throw refusal(result, lineCells(row, col, d, line.length));
         }
-        addTiles(row, col, d, line);
-        if (!moveRespectRules(row, col, d, line.length)) {
+        return result;
+    }
+
+    /**
+     * Adds a sequence of tiles in a line on the game board starting from a given position in a given direction,
+     * without throwing when the move is refused.
+     *
+     * @param row  the row index of the starting position
+     * @param col  the column index of the starting position
+     * @param d    the direction in which to place the tiles
+     * @param line an array of tiles to place in the line
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
+     */
+    public int tryAdd(int row, int col, Direction d, Tile... line) {
+        var result = placeTiles(row, col, d, line);
+        if (result >= 0) {
+            writeDown(line.length);
+            modifyLimits(d, line.length, row, col);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the score a sequence of tiles would make in a line from a given position in a given direction,
+     * leaving the game board as it was.
+     *
+     * @param row  the row index of the starting position
+     * @param col  the column index of the starting position
+     * @param d    the direction in which the tiles would be placed
+     * @param line an array of tiles to check
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it would be refused.
+     */
+    public int validate(int row, int col, Direction d, Tile... line) {
+        var result = placeTiles(row, col, d, line);
+        if (result >= 0) {
             removeTiles(row, col, d, line.length);
-            throw new QwirkleException("Tiles doesn't respect rules, no tile have been placed");
         }
-        modifyLimits(d, line.length, row, col);
-        return calculatedPoint(row, col, d, line.length);
+        return result;
     }
 
     /**
@@ -135,24 +283,294 @@ public class Grid implements Serializable {
      * @param line an array of TileAtPosition objects representing the line of tiles to be added.
      * @throws QwirkleException if a tile cannot be added to the specified position on the game board.
      */
-
     public int add(TileAtPosition... line) throws QwirkleException {
-        if (isEmpty()) {
-            throw new QwirkleException("You need to use first add to do the first move");
-        }
-        for (TileAtPosition tileAtPosition : line) {
-            addTile(tileAtPosition.row(), tileAtPosition.col(), tileAtPosition.tile());
+        var result = tryAdd(line);
+        if (result < 0) {
+            throw refusal(result, cellsOf(line));
         }
-        if (!moveRespectRulesTAP(line)) {
+        return result;
+    }
+
+    /**
+     * Adds a line of tiles to the game board, where each tile is specified by a TileAtPosition object,
+     * without throwing when the move is refused.
+     *
+     * @param line an array of TileAtPosition objects representing the line of tiles to be added.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
+     */
+    public int tryAdd(TileAtPosition... line) {
+        var result = placeTilesAtPos(line);
+        if (result >= 0) {
+            writeDown(line.length);
             for (TileAtPosition tileAtPosition : line) {
-                removeTile(tileAtPosition.row(), tileAtPosition.col());
+                modifyLimits(tileAtPosition.row(), tileAtPosition.col());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the score a line of tiles at the given positions would make, leaving the game board as it was.
+     *
+     * @param line an array of TileAtPosition objects representing the line of tiles to check.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it would be refused.
+     */
+    public int validate(TileAtPosition... line) {
+        var result = placeTilesAtPos(line);
+        if (result >= 0) {
+            removeTilesAtPos(line.length, line);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the exception thrown for a refused move. When the move was refused because of a position,
+     * the message tells which: the first position of the move that is outside the grid, or that holds a tile,
+     * on the grid or as an earlier position of the same move. The tiles of a refused move are removed,
+     * so the grid is as the move found it. The positions are only given once the move is refused,
+     * so that an accepted move allocates nothing.
+     *
+     * @param result the negative result of a {@code try} method
+     * @param cells  the row and the column of each tile of the move, in the order they were placed
+     * @return the exception telling the reason of the refusal
+     */
+    QwirkleException refusal(int result, int... cells) {
+        var error = MoveError.of(result);
+        if (error.isCausedByPosition()) {
+            for (int i = 0; i < cells.length; i += 2) {
+                var row = cells[i];
+                var col = cells[i + 1];
+                if (!isInside(row, col) || get(row, col) != null || isEarlierCell(cells, i)) {
+                    return new QwirkleException(error.getMessage(row, col));
+                }
+            }
+        }
+        return new QwirkleException(error.getMessage());
+    }
+
+    /**
+     * Checks if a position of a move is also an earlier position of the same move.
+     *
+     * @param cells the row and the column of each tile of the move
+     * @param i     the index of the row of the position in the array
+     * @return {@code true} if an earlier tile of the move is placed at the same position
+     */
+    private static boolean isEarlierCell(int[] cells, int i) {
+        for (int j = 0; j < i; j += 2) {
+            if (cells[j] == cells[i] && cells[j + 1] == cells[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the positions of the tiles of a line, as given to {@link #refusal(int, int...)}.
+     *
+     * @param row    the row of the first tile
+     * @param col    the column of the first tile
+     * @param d      the direction of the line
+     * @param length the number of tiles of the line
+     * @return the row and the column of each tile of the line
+     */
+    static int[] lineCells(int row, int col, Direction d, int length) {
+        var cells = new int[length * 2];
+        for (int i = 0; i < length; i++) {
+            cells[i * 2] = row + i * d.getDeltaRow();
+            cells[i * 2 + 1] = col + i * d.getDeltaCol();
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the positions of tiles placed at given positions, as given to {@link #refusal(int, int...)}.
+     *
+     * @param line the tiles with their positions
+     * @return the row and the column of each tile
+     */
+    static int[] cellsOf(TileAtPosition... line) {
+        var cells = new int[line.length * 2];
+        for (int i = 0; i < line.length; i++) {
+            cells[i * 2] = line[i].row();
+            cells[i * 2 + 1] = line[i].col();
+        }
+        return cells;
+    }
+
+    /**
+     * Places a move found by the {@link MoveGenerator} on the grid, without throwing when it is refused.
+     * On an empty grid, the tiles of the move are placed from the origin in the direction of the move.
+     *
+     * @param move the move to place
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
+     */
+    public int apply(Move move) {
+        if (isEmpty) {
+            var line = new Tile[move.size()];
+            for (int i = 0; i < line.length; i++) {
+                line[i] = move.placements()[i].tile();
             }
-            throw new QwirkleException("Tiles doesn't respect rules, no tile have been placed");
+            return tryFirstAdd(move.direction(), line);
+        }
+        return tryAdd(move.placements());
+    }
+
+    /**
+     * Takes back the last move placed on the grid and not undone yet: its tiles are removed,
+     * and the limits and the empty flag are set back to what they were before the move.
+     * Moves can be undone one after the other, back to the empty grid.
+     *
+     * @throws QwirkleException if no move is left to undo
+     */
+    public void undo() throws QwirkleException {
+        if (journalSize == 0) {
+            throw new QwirkleException("There is no move to undo.");
         }
-        for (TileAtPosition tileAtPosition : line) {
-            modifyLimits(tileAtPosition.row(), tileAtPosition.col());
+        journalSize -= JOURNAL_ENTRY;
+        var count = journal[journalSize];
+        for (int i = 0; i < count; i++) {
+            removeTileAt(placedCells[placedCount - 1]);
         }
-        return calculatedPoint(line);
+        System.arraycopy(journal, journalSize + 1, actualLimits, 0, actualLimits.length);
+        isEmpty = journal[journalSize + 5] != 0;
+    }
+
+    /**
+     * Returns the Zobrist key of the tiles of the grid. Two grids holding the same tiles on the same cells
+     * have the same key, and two different grids have different keys but in very rare cases.
+     *
+     * @return the Zobrist key of the grid, 0 for an empty grid
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}: the four limits, the number of tiles,
+     * and the packed cell and the kind of each tile.
+     *
+     * @return the size of the grid in a saved game
+     */
+    int encodedSize() {
+        return (actualLimits.length + 1) * Integer.BYTES + placedCount * (Integer.BYTES + 1);
+    }
+
+    /**
+     * Writes the limits of the grid and its tiles, in the order they were placed, each as its packed cell
+     * and its kind. The empty cells and the journal are not written.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedSize()} bytes left
+     */
+    void writeTo(ByteBuffer buffer) {
+        for (int limit : actualLimits) {
+            buffer.putInt(limit);
+        }
+        buffer.putInt(placedCount);
+        for (int i = 0; i < placedCount; i++) {
+            buffer.putInt(placedCells[i]);
+            buffer.put((byte) placedTiles[i].kind());
+        }
+    }
+
+    /**
+     * Writes the last tiles placed on the grid, in the order they were placed, each as its packed cell and its kind,
+     * as {@link #writeTo(ByteBuffer)} writes every tile.
+     *
+     * @param buffer the buffer to write to, with at least five bytes left per tile
+     * @param count  the number of tiles to write, at most the number of tiles of the grid
+     */
+    void writeLastTiles(ByteBuffer buffer, int count) {
+        for (int i = placedCount - count; i < placedCount; i++) {
+            buffer.putInt(placedCells[i]);
+            buffer.put((byte) placedTiles[i].kind());
+        }
+    }
+
+    /**
+     * Reads a grid written by {@link #writeTo(ByteBuffer)}. Its tiles are placed again one by one, which
+     * builds its lines, anchors and Zobrist key, and its journal is empty. The grid read must be one a game
+     * can reach: its first tile is at the origin, its lines respect the rules, its tiles are all connected
+     * and its limits enclose them.
+     *
+     * @param buffer the buffer to read from
+     * @return the grid read
+     * @throws QwirkleException if the bytes read are not a grid a game can reach
+     */
+    static Grid readFrom(ByteBuffer buffer) throws QwirkleException {
+        var grid = new Grid();
+        for (int i = 0; i < grid.actualLimits.length; i++) {
+            grid.actualLimits[i] = buffer.getInt();
+        }
+        var count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / (Integer.BYTES + 1)) {
+            throw new QwirkleException("The grid of the saved game is corrupted.");
+        }
+        for (int i = 0; i < count; i++) {
+            var cell = buffer.getInt();
+            var kind = buffer.get();
+            var row = ChunkedBoard.rowOf(cell) + ORIGIN_ROW;
+            var col = ChunkedBoard.colOf(cell) + ORIGIN_COL;
+            var firstOutOfOrigin = i == 0 && cell != grid.index(ORIGIN_ROW, ORIGIN_COL);
+            if (kind < 0 || kind >= Tile.KINDS || grid.cells.get(cell) != 0 || firstOutOfOrigin
+                    || !grid.encloses(row, col) || !grid.addTile(row, col, Tile.ofKind(kind))) {
+                throw new QwirkleException("The grid of the saved game is corrupted.");
+            }
+        }
+        if (!grid.isConnected()) {
+            throw new QwirkleException("The grid of the saved game is corrupted.");
+        }
+        grid.isEmpty = count == 0;
+        return grid;
+    }
+
+    /**
+     * Checks if the limits of the grid enclose the given position.
+     *
+     * @param row the row of the position
+     * @param col the column of the position
+     * @return true if the position is between the limits of the grid, false otherwise
+     */
+    private boolean encloses(int row, int col) {
+        return row <= actualLimits[0] && col >= actualLimits[1] && row >= actualLimits[2] && col <= actualLimits[3];
+    }
+
+    /**
+     * Checks if every tile of the grid can be reached from the first one by moving between neighbouring tiles,
+     * as every tile of a game is placed next to the tiles already placed.
+     *
+     * @return true if the tiles of the grid are connected, false otherwise
+     */
+    private boolean isConnected() {
+        if (placedCount == 0) {
+            return true;
+        }
+        var reached = new boolean[placedCount];
+        var toVisit = new int[placedCount];
+        var visitCount = 0;
+        var reachedCount = 1;
+        reached[0] = true;
+        toVisit[visitCount++] = placedCells[0];
+        while (visitCount > 0) {
+            var cell = toVisit[--visitCount];
+            for (int step : NEIGHBOUR_STEPS) {
+                var slot = tileSlots.get(cell + step);
+                if (slot >= 0 && !reached[slot]) {
+                    reached[slot] = true;
+                    reachedCount++;
+                    toVisit[visitCount++] = placedCells[slot];
+                }
+            }
+        }
+        return reachedCount == placedCount;
+    }
+
+    /**
+     * Returns the number of moves placed on the grid that can be undone.
+     *
+     * @return the number of moves in the journal
+     */
+    public int getJournalSize() {
+        return journalSize / JOURNAL_ENTRY;
     }
 
     /**
@@ -163,10 +581,10 @@ public class Grid implements Serializable {
      * @return the tile at the specified row and column
      */
     public Tile get(int row, int col) {
-        if (row >= GRID_SIZE || col >= GRID_SIZE || row <= 0 || col <= 0) {
+        if (!isInside(row, col) || cells.get(index(row, col)) == 0) {
             return null;
         }
-        return tiles[row][col];
+        return placedTiles[tileSlots.get(index(row, col))];
     }
 
     /**
@@ -190,57 +608,326 @@ public class Grid implements Serializable {
         return actualLimits;
     }
 
-    public int getGRID_SIZE() {
-        return GRID_SIZE;
+    /**
+     * Returns the number of anchors of the grid, the empty cells next to at least one tile.
+     * Together with {@link #getAnchorRow(int)}, {@link #getAnchorCol(int)} and {@link #getAnchorKinds(int)},
+     * it lets the callers go through the only cells where a tile can be placed. The anchors are not sorted
+     * and their order changes every time a tile is placed or removed.
+     *
+     * @return the number of anchors.
+     */
+    public int getAnchorCount() {
+        return anchorCount;
     }
 
     /**
-     * Adds a tile to the specified position in the game board.
+     * Returns the row of an anchor.
+     *
+     * @param i the number of the anchor, between 0 and {@link #getAnchorCount()} excluded.
+     * @return the row of the anchor.
+     */
+    public int getAnchorRow(int i) {
+        return ORIGIN_ROW + ChunkedBoard.rowOf(anchorCells[i]);
+    }
+
+    /**
+     * Returns the column of an anchor.
+     *
+     * @param i the number of the anchor, between 0 and {@link #getAnchorCount()} excluded.
+     * @return the column of the anchor.
+     */
+    public int getAnchorCol(int i) {
+        return ORIGIN_COL + ChunkedBoard.colOf(anchorCells[i]);
+    }
+
+    /**
+     * Returns the kinds of tiles that can be placed alone on an anchor. Bit {@code k} of the mask is set
+     * if a tile whose {@link Tile#kind()} is {@code k} can be placed there. The mask can be 0 when
+     * the lines next to the anchor cannot be extended.
+     *
+     * @param i the number of the anchor, between 0 and {@link #getAnchorCount()} excluded.
+     * @return the mask of the kinds of tiles accepted by the anchor.
+     */
+    public long getAnchorKinds(int i) {
+        return anchorKinds[i];
+    }
+
+    /**
+     * Places a tile if the move respects the rules and computes its score.
+     * The limits of the grid are left to the caller, which may remove the tile right away.
      *
      * @param row  The row index of the position.
      * @param col  The column index of the position.
-     * @param tile The tile to be added.
-     * @throws QwirkleException if the position already contains a tile.
+     * @param tile The tile to be placed.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
      */
-    private void addTile(int row, int col, Tile tile) throws QwirkleException {
-        if (tiles[row][col] != null) {
-            throw new QwirkleException("The position (" + row + ", " + col + ") " + "already contain a tile");
+    private int placeTile(int row, int col, Tile tile) {
+        if (isEmpty()) {
+            return MoveError.FIRST_MOVE_REQUIRED.code();
+        }
+        if (!isInside(row, col)) {
+            return MoveError.OUTSIDE_GRID.code();
         }
+        if (cells.get(index(row, col)) != 0) {
+            return MoveError.POSITION_OCCUPIED.code();
+        }
+        if (!canAdd(row, col, tile)) {
+            return MoveError.BREAKS_RULES.code();
+        }
+        scores.reset();
+        addTile(row, col, tile);
+        return scores.score(true);
+    }
 
-        tiles[row][col] = tile;
+    /**
+     * Places tiles in a line from a given position in a given direction if the move respects the rules
+     * and computes its score. The limits of the grid are left to the caller.
+     *
+     * @param row  the row index of the starting position
+     * @param col  the column index of the starting position
+     * @param d    the direction in which to place the tiles
+     * @param line an array of tiles to place in the line
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
+     */
+    private int placeTiles(int row, int col, Direction d, Tile... line) {
+        if (isEmpty()) {
+            return MoveError.FIRST_MOVE_REQUIRED.code();
+        }
+        var result = addTiles(row, col, d, line);
+        if (result < 0) {
+            return result;
+        }
+        if (!moveRespectRules(row, col, d, line.length)) {
+            removeTiles(row, col, d, line.length);
+            return MoveError.BREAKS_RULES.code();
+        }
+        return scores.score(d.getDeltaRow() == 0);
+    }
 
+    /**
+     * Places tiles at the given positions if the move respects the rules and computes its score.
+     * The limits of the grid are left to the caller.
+     *
+     * @param line an array of TileAtPosition objects representing the line of tiles to be placed.
+     * @return the score of the move, or the negative {@link MoveError#code()} of the reason why it was refused.
+     */
+    private int placeTilesAtPos(TileAtPosition... line) {
+        if (isEmpty()) {
+            return MoveError.FIRST_MOVE_REQUIRED.code();
+        }
+        var result = addTilesAtPos(line);
+        if (result < 0) {
+            return result;
+        }
+        if (!moveRespectRulesTAP(line)) {
+            removeTilesAtPos(line.length, line);
+            return MoveError.BREAKS_RULES.code();
+        }
+        return scores.score(line.length == 1 || line[0].row() == line[1].row());
+    }
+
+    /**
+     * Checks if a tile is placed at the specified position.
+     *
+     * @param row The row index of the position.
+     * @param col The column index of the position.
+     * @return {@code true} if the position holds a tile, {@code false} otherwise.
+     */
+    boolean isOccupied(int row, int col) {
+        return isInside(row, col) && cells.get(index(row, col)) != 0;
+    }
+
+    /**
+     * Checks if the specified position is an anchor, an empty cell next to at least one tile.
+     *
+     * @param row The row index of the position.
+     * @param col The column index of the position.
+     * @return {@code true} if the position is an anchor, {@code false} otherwise.
+     */
+    boolean isAnchor(int row, int col) {
+        return isInside(row, col) && anchorSlots.get(index(row, col)) >= 0;
+    }
+
+    /**
+     * Returns the mask of the line of tiles that ends next to the specified position, on the given side.
+     * It is used by the {@link MoveGenerator} to check moves without placing their tiles.
+     *
+     * @param row  The row index of the position.
+     * @param col  The column index of the position.
+     * @param side The side of the position where the line is looked for.
+     * @return the {@link LineMask} of the line, or {@link LineMask#EMPTY} if the neighbouring cell is empty.
+     */
+    long lineNextTo(int row, int col, Direction side) {
+        if (!isInside(row, col)) {
+            return LineMask.EMPTY;
+        }
+        var stride = side.getDeltaRow() * ChunkedBoard.ROW_STRIDE + side.getDeltaCol();
+        return lineAt(index(row, col) + stride, side.getDeltaRow() == 0 ? rowLines : colLines);
+    }
+
+    /**
+     * Adds a tile to the specified position in the game board and merges it with the lines next to it.
+     * The position must be inside the grid and empty. The tile stays on the board even if it breaks one of these lines.
+     * The lengths of the row and of the column of the tile are given to the score calculator of the move.
+     *
+     * @param row  The row index of the position.
+     * @param col  The column index of the position.
+     * @param tile The tile to be added.
+     * @return {@code true} if the row and the column of the tile respect the rules, {@code false} otherwise.
+     */
+    private boolean addTile(int row, int col, Tile tile) {
+        var index = index(row, col);
+        if (placedCount == placedTiles.length) {
+            placedTiles = Arrays.copyOf(placedTiles, placedCount * 2);
+            placedCells = Arrays.copyOf(placedCells, placedCount * 2);
+            rowLines = Arrays.copyOf(rowLines, placedCount * 2);
+            colLines = Arrays.copyOf(colLines, placedCount * 2);
+        }
+        var kind = tile.kind();
+        cells.set(index, (byte) (kind + 1));
+        zobristKey ^= Zobrist.gridTile(index, kind);
+        removeAnchor(index);
+        placedTiles[placedCount] = tile;
+        placedCells[placedCount] = index;
+        tileSlots.put(index, placedCount);
+        placedCount++;
+        var rowLine = linkLine(index, 1, rowLines, kind);
+        var colLine = linkLine(index, ChunkedBoard.ROW_STRIDE, colLines, kind);
+        scores.place(LineMask.length(rowLine), LineMask.length(colLine));
+        return LineMask.isLegal(rowLine) && LineMask.isLegal(colLine);
     }
 
     /**
      * Adds multiple tiles in a specified direction starting from the given position.
+     * As soon as a tile cannot be placed or breaks a line, the tiles already placed are removed:
+     * a line of the finished move cannot respect the rules if a part of it does not.
      *
      * @param row   The starting row index of the position.
      * @param col   The starting column index of the position.
      * @param d     The direction in which the tiles are added.
      * @param tiles The tiles to be added.
-     * @throws QwirkleException if the position already contains a tile.
-     */
-    private void addTiles(int row, int col, Direction d, Tile... tiles) throws QwirkleException {
-        var numberOfTilePlaced = 0;
-        try {
-            for (Tile tile : tiles) {
-                addTile(row + numberOfTilePlaced * d.getDeltaRow(), col + numberOfTilePlaced * d.getDeltaCol(), tile);
-                numberOfTilePlaced++;
+     * @return 0 if every tile was added, or the negative {@link MoveError#code()} of the reason why none was.
+     */
+    private int addTiles(int row, int col, Direction d, Tile... tiles) {
+        scores.reset();
+        for (int i = 0; i < tiles.length; i++) {
+            var result = addTileOrRefuse(row + i * d.getDeltaRow(), col + i * d.getDeltaCol(), tiles[i]);
+            if (result < 0) {
+                removeTiles(row, col, d, result == MoveError.BREAKS_RULES.code() ? i + 1 : i);
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds tiles at the given positions, in the order of the array.
+     * As soon as a tile cannot be placed or breaks a line, the tiles already placed are removed.
+     *
+     * @param tilesAtPos The tiles to be added with their positions.
+     * @return 0 if every tile was added, or the negative {@link MoveError#code()} of the reason why none was.
+     */
+    private int addTilesAtPos(TileAtPosition... tilesAtPos) {
+        scores.reset();
+        for (int i = 0; i < tilesAtPos.length; i++) {
+            var result = addTileOrRefuse(tilesAtPos[i].row(), tilesAtPos[i].col(), tilesAtPos[i].tile());
+            if (result < 0) {
+                removeTilesAtPos(result == MoveError.BREAKS_RULES.code() ? i + 1 : i, tilesAtPos);
+                return result;
             }
-        } catch (QwirkleException e) {
-            removeTiles(row, col, d, numberOfTilePlaced);
-            throw new QwirkleException(e.getMessage());
         }
+        return 0;
+    }
+
+    /**
+     * Adds a tile of a move made of several tiles.
+     *
+     * @param row  The row index of the position.
+     * @param col  The column index of the position.
+     * @param tile The tile to be added.
+     * @return 0 if the tile was added and respects the rules, {@link MoveError#BREAKS_RULES} if it was added
+     * but breaks a line, or the code of the reason why it could not be added at all.
+     */
+    private int addTileOrRefuse(int row, int col, Tile tile) {
+        if (!isInside(row, col)) {
+            return MoveError.OUTSIDE_GRID.code();
+        }
+        if (cells.get(index(row, col)) != 0) {
+            return MoveError.POSITION_OCCUPIED.code();
+        }
+        return addTile(row, col, tile) ? 0 : MoveError.BREAKS_RULES.code();
     }
 
     /**
      * Removes the tile at the specified position from the game board.
+     * The run index can only be restored if the tiles are removed in the reverse order of their placement.
      *
      * @param row The row index of the position.
      * @param col The column index of the position.
      */
     private void removeTile(int row, int col) {
-        tiles[row][col] = null;
+        if (isInside(row, col)) {
+            removeTileAt(index(row, col));
+        }
+    }
+
+    /**
+     * Removes the tile of the cell with the given packed index from the game board.
+     * The last tile placed is always in the last slot, since the tiles are removed in the reverse order
+     * of their placement, so the journal finds the tiles of a move in the last slots.
+     *
+     * @param index The packed index of the cell.
+     */
+    private void removeTileAt(int index) {
+        var slot = tileSlots.get(index);
+        if (slot < 0) {
+            return;
+        }
+        unlinkLine(index, 1, rowLines);
+        unlinkLine(index, ChunkedBoard.ROW_STRIDE, colLines);
+        zobristKey ^= Zobrist.gridTile(index, placedTiles[slot].kind());
+        cells.set(index, (byte) 0);
+        tileSlots.remove(index);
+        placedCount--;
+        if (slot != placedCount) {
+            placedTiles[slot] = placedTiles[placedCount];
+            placedCells[slot] = placedCells[placedCount];
+            rowLines[slot] = rowLines[placedCount];
+            colLines[slot] = colLines[placedCount];
+            tileSlots.put(placedCells[slot], slot);
+        }
+        placedTiles[placedCount] = null;
+        refreshAnchorsAroundLines(index, 1, rowLines);
+        refreshAnchorsAroundLines(index, ChunkedBoard.ROW_STRIDE, colLines);
+        refreshAnchor(index);
+    }
+
+    /**
+     * Returns the size of the storage of the grid: its chunks, and the capacities of its maps and of its tables
+     * of tiles, of anchors and of the journal. It only changes when the storage grows, the only time
+     * a move allocates memory.
+     *
+     * @return the size of the storage of the grid
+     */
+    int getStorageSize() {
+        return cells.getChunkCount() + tileSlots.capacity() + anchorSlots.capacity() + placedTiles.length
+                + anchorCells.length + journal.length;
+    }
+
+    /**
+     * Writes a move that was just placed in the journal, with the limits and the empty flag
+     * of the grid before the move. It must be called before the limits are modified.
+     *
+     * @param count the number of tiles of the move
+     */
+    private void writeDown(int count) {
+        if (journalSize == journal.length) {
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        }
+        journal[journalSize] = count;
+        System.arraycopy(actualLimits, 0, journal, journalSize + 1, actualLimits.length);
+        journal[journalSize + 5] = isEmpty ? 1 : 0;
+        journalSize += JOURNAL_ENTRY;
     }
 
     /**
@@ -252,31 +939,35 @@ public class Grid implements Serializable {
      * @param numberToRemove The number of tiles to be removed.
      */
     private void removeTiles(int row, int col, Direction d, int numberToRemove) {
-        for (int i = 0; i < numberToRemove; i++) {
+        for (int i = numberToRemove - 1; i >= 0; i--) {
             removeTile(row + i * d.getDeltaRow(), col + i * d.getDeltaCol());
         }
     }
 
     /**
-     * Checks if placing a tile at the specified position respects the game rules.
+     * Removes the first tiles of the given array from the game board, in the reverse order.
+     *
+     * @param numberToRemove The number of tiles to be removed.
+     * @param tilesAtPos     The tiles that were added with their positions.
+     */
+    private void removeTilesAtPos(int numberToRemove, TileAtPosition... tilesAtPos) {
+        for (int i = numberToRemove - 1; i >= 0; i--) {
+            removeTile(tilesAtPos[i].row(), tilesAtPos[i].col());
+        }
+    }
+
+    /**
+     * Checks if the tile at the specified position is not alone. The lines of every placed tile were
+     * already checked when it was merged in the run index, so this is the last rule left to check.
      *
      * @param row The row index of the position.
      * @param col The column index of the position.
-     * @return {@code true} if the tile placement respects the rules, {@code false} otherwise.
+     * @return {@code true} if the tile has at least one neighbour, {@code false} otherwise.
      */
-    private boolean moveRespectRules(int row, int col) {
-        var rowOfTiles = getRowFromMove(row, col);
-        var colOfTiles = getColFromMove(row, col);
-        if (!notTheSameTile(rowOfTiles) || !notTheSameTile(colOfTiles)) {
-            return false;
-        }
-        if (!shareACaract(rowOfTiles) || !shareACaract(colOfTiles)) {
-            return false;
-        }
-        if (rowOfTiles.size() == 1 && colOfTiles.size() == 1) {
-            return false;
-        }
-        return true;
+    private boolean hasNeighbour(int row, int col) {
+        var index = index(row, col);
+        return cells.get(index - 1) != 0 || cells.get(index + 1) != 0
+                || cells.get(index - ChunkedBoard.ROW_STRIDE) != 0 || cells.get(index + ChunkedBoard.ROW_STRIDE) != 0;
     }
 
     /**
@@ -289,28 +980,30 @@ public class Grid implements Serializable {
      * @return {@code true} if moving the tile respects the rules, {@code false} otherwise.
      */
     private boolean moveRespectRules(int row, int col, Direction d, int numberOfTiles) {
-        return moveRespectRules(row, col) && isAttachedToExistingTile(row, col, d, numberOfTiles);
+        return hasNeighbour(row, col) && isAttachedToExistingTile(row, col, d, numberOfTiles);
     }
 
     /**
-     * Checks if a tile is attached to an existing tile in a specific direction.
+     * Checks if placed tiles touch at least one tile that was already on the board: either their line is
+     * longer than the tiles placed, or one of them has a neighbour across the line.
      *
-     * @param row           The row position of the tile.
-     * @param col           The column position of the tile.
-     * @param d             The direction in which to check attachment.
-     * @param numberOfTiles The number of tiles to check attachment.
-     * @return {@code true} if the tile is attached to an existing tile, {@code false} otherwise.
+     * @param row           The row position of the first tile.
+     * @param col           The column position of the first tile.
+     * @param d             The direction in which the tiles were placed.
+     * @param numberOfTiles The number of tiles placed.
+     * @return {@code true} if the tiles are attached to an existing tile, {@code false} otherwise.
      */
     private boolean isAttachedToExistingTile(int row, int col, Direction d, int numberOfTiles) {
-        var accoladeTiles = new HashSet<TileAtPosition>();
+        if (lineLength(row, col, d) > numberOfTiles) {
+            return true;
+        }
+        var across = across(d);
         for (int i = 0; i < numberOfTiles; i++) {
-            for (Direction direction : Direction.values()) {
-                accoladeTiles.addAll(getTilesAtPosInDirection(row, col, direction, 0));
+            if (lineLength(row + i * d.getDeltaRow(), col + i * d.getDeltaCol(), across) > 1) {
+                return true;
             }
-            row += d.getDeltaRow();
-            col += d.getDeltaCol();
         }
-        return accoladeTiles.size() != numberOfTiles;
+        return false;
     }
 
     /**
@@ -321,18 +1014,46 @@ public class Grid implements Serializable {
      */
     private boolean moveRespectRulesTAP(TileAtPosition... tilesAtPos) {
         for (TileAtPosition tileAtPos : tilesAtPos) {
-            if (!moveRespectRules(tileAtPos.row(), tileAtPos.col())) {
+            if (!hasNeighbour(tileAtPos.row(), tileAtPos.col())) {
                 return false;
             }
         }
         if (!isOnSameLine(tilesAtPos)) {
             return false;
         }
+        if (tilesAtPos.length > 1) {
+            var first = tilesAtPos[0];
+            return isAttachedToExistingTile(first.row(), first.col(), getDirOfTilesAtPos(tilesAtPos), tilesAtPos);
+        }
         return true;
     }
 
     /**
-     * Checks if all the tiles are on the same line.
+     * Checks if tiles placed on the same line touch at least one tile that was already on the board: either their
+     * line is longer than the tiles placed, or one of them has a neighbour across the line.
+     *
+     * @param row        The row position of the first tile.
+     * @param col        The column position of the first tile.
+     * @param d          The direction of the line of the tiles.
+     * @param tilesAtPos The tiles placed with their positions.
+     * @return {@code true} if the tiles are attached to an existing tile, {@code false} otherwise.
+     */
+    private boolean isAttachedToExistingTile(int row, int col, Direction d, TileAtPosition... tilesAtPos) {
+        if (lineLength(row, col, d) > tilesAtPos.length) {
+            return true;
+        }
+        var across = across(d);
+        for (TileAtPosition tileAtPos : tilesAtPos) {
+            if (lineLength(tileAtPos.row(), tileAtPos.col(), across) > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if all the tiles are on the same line, without a hole between them: each of them must be
+     * on the run of tiles that starts at the first one and goes towards the second one.
      *
      * @param tilesAtPosition TilesAtPosition need to be checked.
      * @return {@code true} if all tiles are on the same line, {@code false} otherwise.
@@ -345,9 +1066,14 @@ public class Grid implements Serializable {
         if (d == null) {
             return false;
         }
-        var tiles = getTilesAtPosInDirection(tilesAtPosition[0].row(), tilesAtPosition[0].col(), d, 0);
+        var first = tilesAtPosition[0];
+        var run = rayLength(first.row(), first.col(), d);
         for (TileAtPosition tileAtPosition : tilesAtPosition) {
-            if (!tiles.contains(tileAtPosition)) {
+            var rowOffset = tileAtPosition.row() - first.row();
+            var colOffset = tileAtPosition.col() - first.col();
+            var distance = rowOffset * d.getDeltaRow() + colOffset * d.getDeltaCol();
+            var sameLine = d.getDeltaRow() == 0 ? rowOffset == 0 : colOffset == 0;
+            if (!sameLine || distance < 0 || distance >= run) {
                 return false;
             }
         }
@@ -382,260 +1108,212 @@ public class Grid implements Serializable {
     }
 
     /**
-     * Retrieves the TileAtPosition object at the specified position.
+     * Counts the tiles met from the specified position in the given direction, the tile at the position included,
+     * until the first empty cell.
      *
-     * @param row The row position of the tile.
-     * @param col The column position of the tile.
-     * @return The TileAtPosition object at the specified position.
+     * @param row The row position of the first tile.
+     * @param col The column position of the first tile.
+     * @param d   The direction to walk.
+     * @return The number of consecutive tiles, 0 if the position is empty.
      */
-    private TileAtPosition getTileAtPos(int row, int col) {
-        return new TileAtPosition(row, col, get(row, col));
-    }
-
-    /**
-     * Checks if the given list of tiles share a common shape or color.
-     *
-     * @param tiles The list of tiles to check.
-     * @return {@code true} if the tiles share a common shape or color, {@code false} otherwise.
-     */
-    private boolean shareACaract(ArrayList<Tile> tiles) {
-        if (tiles.size() == 1) {
-            return true;
+    private int rayLength(int row, int col, Direction d) {
+        if (!isInside(row, col)) {
+            return 0;
+        }
+        var stride = d.getDeltaRow() * ChunkedBoard.ROW_STRIDE + d.getDeltaCol();
+        var length = 0;
+        for (int index = index(row, col); cells.get(index) != 0; index += stride) {
+            length++;
         }
-        HashSet<Shape> shapes = (HashSet<Shape>) tiles.stream().map(Tile::shape).collect(Collectors.toSet());
-        HashSet<Color> colors = (HashSet<Color>) tiles.stream().map(Tile::color).collect(Collectors.toSet());
-        return shapes.size() == 1 ^ colors.size() == 1;
+        return length;
     }
 
     /**
-     * Checks if the given list of tiles contains duplicates.
+     * Returns the length of the line of tiles going through the specified position along the axis of a direction.
      *
-     * @param tiles The list of tiles to check.
-     * @return {@code true} if the list contains duplicates, {@code false} otherwise.
+     * @param row The row position of a tile of the line.
+     * @param col The column position of a tile of the line.
+     * @param d   A direction of the axis of the line.
+     * @return The number of tiles of the line.
      */
-    private boolean notTheSameTile(ArrayList<Tile> tiles) {
-        var tilesHashSet = new HashSet<Tile>(tiles);
-        return tilesHashSet.size() == tiles.size();
+    private int lineLength(int row, int col, Direction d) {
+        return rayLength(row, col, d) + rayLength(row, col, d.opposite()) - 1;
     }
 
     /**
-     * Retrieves the column of tiles from the specified position.
+     * Returns a direction of the axis perpendicular to the axis of the given direction.
      *
-     * @param row The row position of the tile.
-     * @param col The column position of the tile.
-     * @return The list of tiles in the column.
+     * @param d The direction.
+     * @return {@link Direction#DOWN} for a horizontal direction, {@link Direction#RIGHT} for a vertical one.
      */
-    private ArrayList<Tile> getColFromMove(int row, int col) {
-        var listOfTiles = getTilesInDirection(row, col, Direction.UP, 1);
-        listOfTiles.addAll(getTilesInDirection(row, col, Direction.DOWN, 1));
-        listOfTiles.add(get(row, col));
-        return listOfTiles;
+    private static Direction across(Direction d) {
+        return d.getDeltaRow() == 0 ? Direction.DOWN : Direction.RIGHT;
     }
 
     /**
-     * Retrieves the row of tiles from the specified position.
+     * Merges a newly placed tile with the lines ending next to it along one axis. The merged line is written
+     * on both ends of the line, and on the placed tile: only the ends of a line are guaranteed to hold its
+     * mask, but these are the only cells read when a tile is placed next to the line.
+     * The masks left on the former ends are what {@link #unlinkLine(int, int, long[])} restores.
      *
-     * @param row The row position of the tile.
-     * @param col The column position of the tile.
-     * @return The list of tiles in the row.
+     * @param cell   The packed index of the placed tile.
+     * @param stride The difference between the packed indexes of two consecutive cells of the axis.
+     * @param lines  The masks of the lines of the axis, by slot.
+     * @param kind   The kind of the placed tile.
+     * @return the mask of the line the tile now belongs to.
      */
-    private ArrayList<Tile> getRowFromMove(int row, int col) {
-        var listOfTiles = getTilesInDirection(row, col, Direction.LEFT, 1);
-        listOfTiles.addAll(getTilesInDirection(row, col, Direction.RIGHT, 1));
-        listOfTiles.add(get(row, col));
-        return listOfTiles;
+    private long linkLine(int cell, int stride, long[] lines, int kind) {
+        var before = lineAt(cell - stride, lines);
+        var after = lineAt(cell + stride, lines);
+        var line = LineMask.merge(LineMask.merge(before, LineMask.of(kind)), after);
+        lines[tileSlots.get(cell - LineMask.length(before) * stride)] = line;
+        lines[tileSlots.get(cell + LineMask.length(after) * stride)] = line;
+        lines[tileSlots.get(cell)] = line;
+        refreshAnchor(cell - (LineMask.length(before) + 1) * stride);
+        refreshAnchor(cell + (LineMask.length(after) + 1) * stride);
+        return line;
     }
 
     /**
-     * Retrieves the tiles in the specified direction from the given position.
+     * Splits the line of a tile about to be removed along one axis, giving back to the lines on each side
+     * the masks they had before the tile was placed.
      *
-     * @param row    The row position of the tile.
-     * @param col    The column position of the tile.
-     * @param d      The direction to retrieve the tiles.
-     * @param offSet The offset from the initial position.
-     * @return The list of tiles in the specified direction.
+     * @param cell   The packed index of the removed tile.
+     * @param stride The difference between the packed indexes of two consecutive cells of the axis.
+     * @param lines  The masks of the lines of the axis, by slot.
      */
-    private ArrayList<Tile> getTilesInDirection(int row, int col, Direction d, int offSet) {
-        var listOfTiles = new ArrayList<Tile>();
-        Tile nextTile;
-        var numberOfTileFound = offSet;
-        do {
-            nextTile = get(row + numberOfTileFound * d.getDeltaRow(), col + numberOfTileFound * d.getDeltaCol());
-            if (nextTile != null) {
-                listOfTiles.add(nextTile);
-            }
-            numberOfTileFound++;
-        } while (nextTile != null);
-        return listOfTiles;
+    private void unlinkLine(int cell, int stride, long[] lines) {
+        restoreLine(cell - stride, -stride, lines);
+        restoreLine(cell + stride, stride, lines);
     }
 
     /**
-     * Retrieves the tiles at the specified position in the given direction.
+     * Restores the mask of the line that starts next to a removed tile and goes away from it.
+     * A line of a single tile is rebuilt from its kind, since its only cell was overwritten by the merge.
+     * A longer line still holds its former mask on the cell next to the removed tile,
+     * which is copied back to its far end. Lines are rolled back as soon as they break,
+     * so the lines next to a removed tile never contain a duplicate and their length is exact.
      *
-     * @param row    The row position of the tile.
-     * @param col    The column position of the tile.
-     * @param d      The direction to retrieve the tiles.
-     * @param offSet The offset from the initial position.
-     * @return The list of tiles at the specified position in the specified direction.
+     * @param cell    The packed index of the cell next to the removed tile.
+     * @param outward The difference between the packed indexes of two consecutive cells, going away from it.
+     * @param lines   The masks of the lines of the axis, by slot.
      */
-    private ArrayList<TileAtPosition> getTilesAtPosInDirection(int row, int col, Direction d, int offSet) {
-        var listOfTiles = new ArrayList<TileAtPosition>();
-        TileAtPosition nextTile;
-        var numberOfTileFound = offSet;
-        do {
-            nextTile = getTileAtPos(row + numberOfTileFound * d.getDeltaRow(),
-                    col + numberOfTileFound * d.getDeltaCol());
-            if (nextTile.tile() != null) {
-                listOfTiles.add(nextTile);
-            }
-            numberOfTileFound++;
-        } while (nextTile.tile() != null);
-        return listOfTiles;
+    private void restoreLine(int cell, int outward, long[] lines) {
+        var slot = tileSlots.get(cell);
+        if (slot < 0) {
+            return;
+        }
+        if (cells.get(cell + outward) == 0) {
+            lines[slot] = LineMask.of(cells.get(cell) - 1);
+        } else {
+            lines[tileSlots.get(cell + (LineMask.length(lines[slot]) - 1) * outward)] = lines[slot];
+        }
     }
 
     /**
-     * Calculates the total points earned at the specified position.
+     * Refreshes the anchors just outside both lines that ended next to a removed tile along one axis,
+     * once the removed tile is gone from the board.
      *
-     * @param row The row position of the tile.
-     * @param col The column position of the tile.
-     * @return The total points earned at the specified position.
+     * @param cell   The packed index of the removed tile.
+     * @param stride The difference between the packed indexes of two consecutive cells of the axis.
+     * @param lines  The masks of the lines of the axis, by slot.
      */
-    private int calculatePoint(int row, int col) {
-        var accoladeTiles = new HashSet<TileAtPosition>();
-        var QwirklePoints = 0;
-        for (Direction direction : Direction.values()) {
-            accoladeTiles.addAll(getTilesAtPosInDirection(row, col, direction, 0));
-            if (getTilesInDirection(row, col, direction, 0).size() == 7) {
-                QwirklePoints += 7;
-            }
-        }
-        return accoladeTiles.size() + QwirklePoints + additionalPointsCausedByTile(row, col);
+    private void refreshAnchorsAroundLines(int cell, int stride, long[] lines) {
+        refreshAnchor(cell - (LineMask.length(lineAt(cell - stride, lines)) + 1) * stride);
+        refreshAnchor(cell + (LineMask.length(lineAt(cell + stride, lines)) + 1) * stride);
     }
 
     /**
-     * Calculates the total points earned when placing tiles in a specific direction.
+     * Computes again whether a cell is an anchor and which kinds of tiles it accepts.
+     * A tile can be placed alone on an empty cell if it can extend both the row and the column
+     * made of the lines ending next to the cell, and at least one of them is not empty.
+     * Only the cells just outside the ends of a line depend on it, so placing or removing a tile
+     * only needs to refresh the cell itself and the four cells just outside its row and its column.
      *
-     * @param row                 The row position of the first tile.
-     * @param col                 The column position of the first tile.
-     * @param d                   The direction in which the tiles are placed.
-     * @param numberOfTilesPlaced The number of tiles placed.
-     * @return The total points earned for the placement.
+     * @param cell The packed index of the cell.
      */
-    private int calculatedPoint(int row, int col, Direction d, int numberOfTilesPlaced) {
-        var accoladeTiles = new HashSet<TileAtPosition>();
-        var actualRow = row;
-        var actualCol = col;
-        var QwirklePoints = 0;
-        for (int i = 0; i < numberOfTilesPlaced; i++) {
-            for (Direction direction : Direction.values()) {
-                accoladeTiles.addAll(getTilesAtPosInDirection(actualRow, actualCol, direction, 0));
-            }
-            actualRow += d.getDeltaRow();
-            actualCol += d.getDeltaCol();
+    private void refreshAnchor(int cell) {
+        if (cells.get(cell) != 0) {
+            removeAnchor(cell);
+            return;
         }
-        for (Direction direction : Direction.values()) {
-            if (getTilesInDirection(row, col, direction, 0).size() == 7) {
-                QwirklePoints += 7;
-            }
+        var rowLine = LineMask.merge(lineAt(cell - 1, rowLines), lineAt(cell + 1, rowLines));
+        var colLine = LineMask.merge(lineAt(cell - ChunkedBoard.ROW_STRIDE, colLines),
+                lineAt(cell + ChunkedBoard.ROW_STRIDE, colLines));
+        if (rowLine == LineMask.EMPTY && colLine == LineMask.EMPTY) {
+            removeAnchor(cell);
+            return;
         }
-        return accoladeTiles.size() + QwirklePoints + additionalPointsCausedByTiles(row, col, d, numberOfTilesPlaced);
-    }
-
-    /**
-     * Calculates the total points earned for a given set of tiles.
-     *
-     * @param tiles The tiles for which to calculate the points.
-     * @return The total points earned for the tiles.
-     */
-    private int calculatedPoint(TileAtPosition... tiles) {
-        var accoladeTiles = new HashSet<TileAtPosition>();
-        var additionalPoints = 0;
-        var QwirklePoints = 0;
-        for (TileAtPosition tile : tiles) {
-            for (Direction direction : Direction.values()) {
-                accoladeTiles.addAll(getTilesAtPosInDirection(tile.row(), tile.col(), direction, 0));
-            }
-            additionalPoints += additionalPointsCausedByTile(tile.row(), tile.col());
-            for (Direction direction : Direction.values()) {
-                if (getTilesInDirection(tile.row(), tile.col(), direction, 0).size() == 7) {
-                    QwirklePoints += 7;
-                }
+        var kinds = LineMask.allowedKinds(rowLine) & LineMask.allowedKinds(colLine);
+        var slot = anchorSlots.get(cell);
+        if (slot < 0) {
+            if (anchorCount == anchorCells.length) {
+                anchorCells = Arrays.copyOf(anchorCells, anchorCount * 2);
+                anchorKinds = Arrays.copyOf(anchorKinds, anchorCount * 2);
             }
+            slot = anchorCount++;
+            anchorCells[slot] = cell;
+            anchorSlots.put(cell, slot);
         }
-        return accoladeTiles.size() + QwirklePoints + additionalPoints;
+        anchorKinds[slot] = kinds;
     }
 
     /**
-     * Calculates additional points caused by placing a tile at the specified position.
+     * Removes a cell from the anchors if it is one, moving the last anchor into its slot.
      *
-     * @param row The row position of the tile.
-     * @param col The column position of the tile.
-     * @return The additional points caused by the tile placement.
+     * @param cell The packed index of the cell.
      */
-    private int additionalPointsCausedByTile(int row, int col) {
-        var listOfDirectionsNearbyTile = getDirectionsNearbyATile(row, col);
-        if ((listOfDirectionsNearbyTile.contains(Direction.UP) ||
-                listOfDirectionsNearbyTile.contains(Direction.DOWN)) &&
-                (listOfDirectionsNearbyTile.contains(Direction.LEFT) ||
-                        listOfDirectionsNearbyTile.contains(Direction.RIGHT))) {
-            return 1;
+    private void removeAnchor(int cell) {
+        var slot = anchorSlots.get(cell);
+        if (slot < 0) {
+            return;
+        }
+        anchorSlots.remove(cell);
+        anchorCount--;
+        if (slot != anchorCount) {
+            anchorCells[slot] = anchorCells[anchorCount];
+            anchorKinds[slot] = anchorKinds[anchorCount];
+            anchorSlots.put(anchorCells[slot], slot);
         }
-        return 0;
     }
 
     /**
-     * Calculates additional points caused by placing multiple tiles in a specific direction.
+     * Returns the mask of the line ending at the specified cell.
      *
-     * @param row           The row position of the first tile.
-     * @param col           The column position of the first tile.
-     * @param d             The direction in which the tiles are placed.
-     * @param numberOfTiles The number of tiles placed.
-     * @return The additional points caused by the tile placements.
+     * @param cell  The packed index of the cell, which must be an end of its line.
+     * @param lines The masks of the lines of the axis, by slot.
+     * @return the mask of the line, or {@link LineMask#EMPTY} if the cell is empty.
      */
-    private int additionalPointsCausedByTiles(int row, int col, Direction d, int numberOfTiles) {
-        var additionalPoints = 0;
-        for (int i = 0; i < numberOfTiles; i++) {
-            additionalPoints += numberOfNonOppositeDirectionsNearbyATile(row + i * d.getDeltaRow(), col + i * d.getDeltaCol());
-        }
-        return additionalPoints;
+    private long lineAt(int cell, long[] lines) {
+        var slot = tileSlots.get(cell);
+        return slot < 0 ? LineMask.EMPTY : lines[slot];
     }
 
     /**
-     * Calculates the number of non-opposite directions nearby a tile at the specified position.
+     * Checks if the specified position can be addressed by the grid. Since a game holds far fewer tiles
+     * than the addressable distance from the origin, a game can never reach this limit. Whether a tile
+     * can be placed there is decided by the rules when it is added.
      *
-     * @param row The row position of the tile.
-     * @param col The column position of the tile.
-     * @return The number of non-opposite directions nearby the tile.
+     * @param row The row position.
+     * @param col The column position.
+     * @return {@code true} if the position is inside the grid, {@code false} otherwise.
      */
-    private int numberOfNonOppositeDirectionsNearbyATile(int row, int col) {
-        var listOfDirectionsNearbyTile = getDirectionsNearbyATile(row, col);
-        if ((listOfDirectionsNearbyTile.contains(Direction.UP) ||
-                listOfDirectionsNearbyTile.contains(Direction.DOWN)) &&
-                (listOfDirectionsNearbyTile.contains(Direction.LEFT) ||
-                        listOfDirectionsNearbyTile.contains(Direction.RIGHT))) {
-            return 1;
-        }
-        return 0;
+    public static boolean isInside(int row, int col) {
+        return Math.abs(row - ORIGIN_ROW) <= ChunkedBoard.MAX_DISTANCE
+                && Math.abs(col - ORIGIN_COL) <= ChunkedBoard.MAX_DISTANCE;
     }
 
     /**
-     * Retrieves the list of directions of neighboring tiles near a specified position.
+     * Returns the packed index of the specified position, relative to the origin of the grid.
      *
-     * @param row The row position of the tile.
-     * @param col The column position of the tile.
-     * @return The list of directions of neighboring tiles.
+     * @param row The row position.
+     * @param col The column position.
+     * @return the packed index of the cell.
      */
-    private List<Direction> getDirectionsNearbyATile(int row, int col) {
-        var listOfDirections = new ArrayList<Direction>();
-        for (Direction direction : Direction.values()) {
-            if (get(row + direction.getDeltaRow(), col + direction.getDeltaCol()) != null) {
-                listOfDirections.add(direction);
-            }
-        }
-        return listOfDirections;
+    private int index(int row, int col) {
+        return ChunkedBoard.pack(row - ORIGIN_ROW, col - ORIGIN_COL);
     }
 
-
     /**
      * Updates the actualLimits attribute based on the placement of a Tile in a certain direction.
      * The direction can be UP, DOWN, LEFT, or RIGHT, and the numberPlaced parameter indicates
@@ -0,0 +1,157 @@
+package g60904.qwirkle.model;
+
+/**
+ * The LineMask class validates lines of tiles represented as a single {@code long}:
+ * <ul>
+ *     <li>bits 0 to 48 tell which kinds of tiles are present in the line ({@link Tile#kind()}),</li>
+ *     <li>bits 49 to 55 are the mask of the colors of the line, by ordinal,</li>
+ *     <li>bits 56 to 62 are the mask of the shapes of the line, by ordinal,</li>
+ *     <li>bit 63 is set once the same kind of tile has been merged twice in the line.</li>
+ * </ul>
+ * The empty line is 0. Merging two lines and checking that a line respects the rules
+ * only take a few bitwise operations.
+ */
+final class LineMask {
+    /**
+     * The empty line.
+     */
+    static final long EMPTY = 0L;
+    /**
+     * The mask of every kind of tile, as returned by {@link #allowedKinds(long)} for the empty line.
+     */
+    static final long ALL_KINDS = (1L << Tile.KINDS) - 1;
+    private static final int COLORS_SHIFT = Tile.KINDS;
+    private static final int SHAPES_SHIFT = COLORS_SHIFT + 7;
+    private static final long KINDS_MASK = ALL_KINDS;
+    private static final long FIRST_SHAPE_OF_EACH_COLOR = 0x40810204081L;
+    private static final long DUPLICATE = 1L << 63;
+    private static final long[] SINGLES = createSingles();
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private LineMask() {
+    }
+
+    /**
+     * Returns the line made of a single tile of the given kind.
+     *
+     * @param kind the kind of the tile
+     * @return the line containing only this tile
+     */
+    static long of(int kind) {
+        return SINGLES[kind];
+    }
+
+    /**
+     * Merges two lines that become a single one. If both lines contain the same kind of tile,
+     * the merged line is marked as containing a duplicate.
+     *
+     * @param first  the first line
+     * @param second the second line
+     * @return the merged line
+     */
+    static long merge(long first, long second) {
+        var duplicate = (first & second & KINDS_MASK) != 0 ? DUPLICATE : 0L;
+        return first | second | duplicate;
+    }
+
+    /**
+     * Checks if a line respects the rules: it contains no duplicate, and its tiles all share
+     * the same color or all share the same shape. Without duplicate, tiles of the same color
+     * necessarily have different shapes and conversely.
+     *
+     * @param line the line to check
+     * @return {@code true} if the line respects the rules, {@code false} otherwise
+     */
+    static boolean isLegal(long line) {
+        if (line < 0) {
+            return false;
+        }
+        return Long.bitCount(line & KINDS_MASK) <= 1
+                || Integer.bitCount(colors(line)) == 1 || Integer.bitCount(shapes(line)) == 1;
+    }
+
+    /**
+     * Returns the kinds of tiles that can be added to a line while keeping it legal.
+     * Any tile can be added to the empty line. Otherwise, if all the tiles of the line share a color,
+     * the tiles of that color missing from the line can be added, and likewise for a shared shape.
+     *
+     * @param line the line
+     * @return a mask where bit {@code k} is set if a tile of kind {@code k} can be added to the line
+     */
+    static long allowedKinds(long line) {
+        if (line == EMPTY) {
+            return ALL_KINDS;
+        }
+        if (line < 0) {
+            return 0L;
+        }
+        var allowed = 0L;
+        var colors = colors(line);
+        var shapes = shapes(line);
+        if (Integer.bitCount(colors) == 1) {
+            allowed |= 0x7FL << (7 * Integer.numberOfTrailingZeros(colors));
+        }
+        if (Integer.bitCount(shapes) == 1) {
+            allowed |= FIRST_SHAPE_OF_EACH_COLOR << Integer.numberOfTrailingZeros(shapes);
+        }
+        return allowed & ~kinds(line);
+    }
+
+    /**
+     * Returns the number of tiles of a line, which is only exact for a line without duplicate.
+     *
+     * @param line the line
+     * @return the number of tiles of the line
+     */
+    static int length(long line) {
+        return Long.bitCount(line & KINDS_MASK);
+    }
+
+    /**
+     * Returns the mask of the kinds of tiles present in a line.
+     *
+     * @param line the line
+     * @return a mask where bit {@code k} is set if a tile of kind {@code k} is in the line
+     */
+    static long kinds(long line) {
+        return line & KINDS_MASK;
+    }
+
+    /**
+     * Returns the mask of the colors present in a line.
+     *
+     * @param line the line
+     * @return a 7-bit mask where bit {@code c} is set if a tile of color ordinal {@code c} is in the line
+     */
+    static int colors(long line) {
+        return (int) (line >>> COLORS_SHIFT) & 0x7F;
+    }
+
+    /**
+     * Returns the mask of the shapes present in a line.
+     *
+     * @param line the line
+     * @return a 7-bit mask where bit {@code s} is set if a tile of shape ordinal {@code s} is in the line
+     */
+    static int shapes(long line) {
+        return (int) (line >>> SHAPES_SHIFT) & 0x7F;
+    }
+
+    /**
+     * Builds the line of a single tile for each kind.
+     *
+     * @return the single tile lines, by kind
+     */
+    private static long[] createSingles() {
+        var singles = new long[Tile.KINDS];
+        for (int kind = 0; kind < Tile.KINDS; kind++) {
+            var tile = Tile.ofKind(kind);
+            singles[kind] = 1L << kind
+                    | 1L << (COLORS_SHIFT + tile.color().ordinal())
+                    | 1L << (SHAPES_SHIFT + tile.shape().ordinal());
+        }
+        return singles;
+    }
+}
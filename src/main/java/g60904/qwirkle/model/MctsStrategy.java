@@ -0,0 +1,478 @@
+package g60904.qwirkle.model;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A strategy that chooses its moves by a Monte Carlo Tree Search, run on all the cores for a given time.
+ * <p>
+ * The player does not know the tiles of the other players nor the order of the tiles in the bag, so each iteration
+ * of the search plays on a fork of the game where these hidden tiles are drawn again (a determinization). From the
+ * root, the tree is walked down by choosing at each node the move with the best upper confidence bound among the
+ * moves that are legal in the determinization, until a node with moves never tried is found. The best scoring of
+ * these moves is added to the tree, so that a short search already plays well, and the game is played on by
+ * a rollout, where each player plays their best move but sometimes a random one, for at most {@value #HORIZON}
+ * turns from the root. The result is the difference between the points won since the root by each player and by
+ * the best of the others, and it is added to the nodes of the walk, each from the point of view of the player who
+ * made its move. Only the {@value #WIDTH} best scoring moves of each node are tried, so that the rollouts are not
+ * spread over the many moves that score few points. The move finally played is the most tried move of the root.
+ * <p>
+ * The search is parallelized at the root: each thread of a {@link ForkJoinPool} grows its own tree, with its own
+ * source of random numbers, and the numbers of tries of the moves of the roots are added up at the end. The threads
+ * share nothing while they search, so no lock nor virtual loss is needed, and the number of rollouts grows with the
+ * number of cores.
+ * <p>
+ * Every strategy searches on the same pool, which has as many threads as the largest number of threads asked for.
+ * Its threads are daemons that stop when they stay idle, so a strategy needs not be closed.
+ */
+public class MctsStrategy implements PlayerStrategy {
+    /**
+     * The number of turns, from the root, after which a rollout stops and the scores are compared.
+     */
+    private static final int HORIZON = 4;
+    /**
+     * The number of the best scoring moves of a node that are tried by the search.
+     */
+    private static final int WIDTH = 8;
+    /**
+     * The weight of the exploration in the upper confidence bound.
+     */
+    private static final double EXPLORATION = 0.7;
+    /**
+     * The chance that a player of a rollout plays a random move instead of their best one.
+     */
+    private static final double RANDOM_MOVE_CHANCE = 0.2;
+    /**
+     * The difference of scores for which a result is about three quarters of a win.
+     */
+    private static final double SCORE_SCALE = 20;
+    /**
+     * Guards the pool shared by the strategies: a search holds the read lock while it runs on the pool,
+     * and the pool is only replaced by a larger one under the write lock, when no search runs on it.
+     */
+    private static final ReadWriteLock POOL_LOCK = new ReentrantReadWriteLock();
+    private static ForkJoinPool sharedPool;
+    private final Duration budget;
+    private final int parallelism;
+    private final SplitMixRandom random;
+    private long lastRollouts;
+    private double lastRolloutsPerSecond;
+
+    /**
+     * Constructs a strategy that searches for the given time on all the cores of the machine.
+     *
+     * @param budget the time given to choose a move
+     */
+    public MctsStrategy(Duration budget) {
+        this(budget, Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    /**
+     * Constructs a strategy that searches for the given time with the given number of threads.
+     *
+     * @param budget      the time given to choose a move
+     * @param parallelism the number of threads, and of trees, of the search
+     * @param seed        the seed of the random numbers of the search
+     * @throws QwirkleException if the budget is not positive or if there is no thread
+     */
+    public MctsStrategy(Duration budget, int parallelism, long seed) throws QwirkleException {
+        if (budget.isNegative() || budget.isZero() || parallelism < 1) {
+            throw new QwirkleException("The search needs some time and at least one thread.");
+        }
+        this.budget = budget;
+        this.parallelism = parallelism;
+        this.random = new SplitMixRandom(seed);
+    }
+
+    /**
+     * Constructs a strategy read from a saved game, whose source of random numbers goes on where it was.
+     *
+     * @param budget      the time given to choose a move
+     * @param parallelism the number of threads, and of trees, of the search
+     * @param random      the source of the random numbers of the search
+     */
+    private MctsStrategy(Duration budget, int parallelism, SplitMixRandom random) {
+        this.budget = budget;
+        this.parallelism = parallelism;
+        this.random = random;
+    }
+
+    /**
+     * Chooses the most tried move of the root after searching for the time given.
+     *
+     * @param game the game, whose current player is the one to play
+     * @return the move chosen, or {@code null} if the current player cannot play
+     */
+    @Override
+    public Move chooseMove(Game game) {
+        var moves = game.getCurrentPlayerMoves();
+        if (moves.size() <= 1) {
+            lastRollouts = 0;
+            lastRolloutsPerSecond = 0;
+            return moves.isEmpty() ? null : moves.get(0);
+        }
+        var start = System.nanoTime();
+        var deadline = start + budget.toNanos();
+        var searches = new ArrayList<Callable<Search>>();
+        for (int i = 0; i < parallelism; i++) {
+            var search = new Search(game, random.split(), deadline);
+            searches.add(() -> search.run());
+        }
+        var tries = new HashMap<Long, Long>();
+        var results = new HashMap<Long, Double>();
+        var rollouts = 0L;
+        POOL_LOCK.readLock().lock();
+        while (sharedPool == null || sharedPool.getParallelism() < parallelism) {
+            POOL_LOCK.readLock().unlock();
+            growPool(parallelism);
+            POOL_LOCK.readLock().lock();
+        }
+        try {
+            for (var result : sharedPool.invokeAll(searches)) {
+                var search = result.get();
+                rollouts += search.rollouts;
+                for (Node child : search.root.children.values()) {
+                    tries.merge(child.key, (long) child.visits, Long::sum);
+                    results.merge(child.key, child.results, Double::sum);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QwirkleException("The search was interrupted.");
+        } catch (ExecutionException e) {
+            throw new QwirkleException("The search failed: " + e.getCause().getMessage());
+        } finally {
+            POOL_LOCK.readLock().unlock();
+        }
+        lastRollouts = rollouts;
+        lastRolloutsPerSecond = rollouts / ((System.nanoTime() - start) / 1e9);
+        Move best = moves.get(0);
+        var bestTries = -1L;
+        var bestResults = 0.0;
+        for (Move move : moves) {
+            var moveTries = tries.getOrDefault(keyOf(move), 0L);
+            var moveResults = results.getOrDefault(keyOf(move), 0.0);
+            if (moveTries > bestTries || moveTries == bestTries && moveResults > bestResults) {
+                best = move;
+                bestTries = moveTries;
+                bestResults = moveResults;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of rollouts of the last search, on all the threads.
+     *
+     * @return the number of rollouts of the last search
+     */
+    public long getLastRollouts() {
+        return lastRollouts;
+    }
+
+    /**
+     * Returns the number of rollouts per second of the last search, on all the threads.
+     *
+     * @return the rollouts per second of the last search
+     */
+    public double getLastRolloutsPerSecond() {
+        return lastRolloutsPerSecond;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}: the budget, the number of threads
+     * and the state and the gamma of the source of random numbers.
+     *
+     * @return the size of the strategy in a saved game
+     */
+    int encodedSize() {
+        return Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+    }
+
+    /**
+     * Writes the budget in nanoseconds, the number of threads and the state and the gamma of the source
+     * of random numbers, so that the strategy read back searches as this one would have.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedSize()} bytes left
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(budget.toNanos());
+        buffer.putInt(parallelism);
+        buffer.putLong(random.getState());
+        buffer.putLong(random.getGamma());
+    }
+
+    /**
+     * Reads a strategy written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the strategy read
+     * @throws QwirkleException if the budget, the number of threads or the gamma read are not possible
+     */
+    static MctsStrategy readFrom(ByteBuffer buffer) throws QwirkleException {
+        var budget = buffer.getLong();
+        var parallelism = buffer.getInt();
+        var state = buffer.getLong();
+        var gamma = buffer.getLong();
+        if (budget <= 0 || parallelism < 1 || (gamma & 1) == 0) {
+            throw new QwirkleException("The strategy of a player of the saved game is corrupted.");
+        }
+        return new MctsStrategy(Duration.ofNanos(budget), parallelism, SplitMixRandom.fromState(state, gamma));
+    }
+
+    /**
+     * Makes the pool shared by the strategies at least as large as the given number of threads. The first time,
+     * the pool is created; when more threads are asked for, a larger pool replaces it, once the searches running
+     * on the former one are over, and the former one is shut down. It is called without the read lock,
+     * which cannot be turned into the write lock.
+     *
+     * @param parallelism the number of threads of a search
+     */
+    private static void growPool(int parallelism) {
+        POOL_LOCK.writeLock().lock();
+        try {
+            if (sharedPool == null || sharedPool.getParallelism() < parallelism) {
+                var former = sharedPool;
+                sharedPool = new ForkJoinPool(parallelism);
+                if (former != null) {
+                    former.shutdown();
+                }
+            }
+        } finally {
+            POOL_LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the key of a move, the same in every determinization, or 0 for a pass.
+     *
+     * @param move the move, or null for a pass
+     * @return the key of the move
+     */
+    private static long keyOf(Move move) {
+        return move == null ? 0 : move.key();
+    }
+
+    /**
+     * Keeps the best scoring moves of a list, the only ones tried by the search from a node. Most moves of a hand
+     * score few points, and trying them all would leave too few rollouts to the good ones.
+     *
+     * @param moves the legal moves of a player
+     * @return the {@value #WIDTH} moves that score the most, or all the moves if there are fewer
+     */
+    private static List<Move> bestMoves(List<Move> moves) {
+        if (moves.size() <= WIDTH) {
+            return moves;
+        }
+        var sorted = new ArrayList<>(moves);
+        sorted.sort((first, second) -> Integer.compare(second.score(), first.score()));
+        return sorted.subList(0, WIDTH);
+    }
+
+    /**
+     * Converts a difference of scores into a result between 0 and 1, where 1/2 is a draw.
+     *
+     * @param difference the score of a player minus the best score of the others
+     * @return the result for the player
+     */
+    private static double resultOf(int difference) {
+        return 0.5 + 0.5 * Math.tanh(difference / SCORE_SCALE);
+    }
+
+    /**
+     * A node of a search tree, reached by a move of a player.
+     */
+    private static final class Node {
+        private final long key;
+        private final int player;
+        private final Map<Long, Node> children = new HashMap<>();
+        private int visits;
+        private int availability;
+        private double results;
+
+        /**
+         * Constructs a node never visited.
+         *
+         * @param key    the key of the move that reaches the node
+         * @param player the index of the player who made that move
+         */
+        private Node(long key, int player) {
+            this.key = key;
+            this.player = player;
+        }
+
+        /**
+         * Returns the upper confidence bound of the move of the node, among the moves that were legal
+         * as many times as this one.
+         *
+         * @return the upper confidence bound of the node
+         */
+        private double upperBound() {
+            return results / visits + EXPLORATION * Math.sqrt(Math.log(availability) / visits);
+        }
+    }
+
+    /**
+     * The search run by one thread, which grows its own tree until the deadline.
+     */
+    private static final class Search {
+        private final Game game;
+        private final int observer;
+        private final SplitMixRandom random;
+        private final long deadline;
+        private final Node root;
+        private final int[] rootScores;
+        private long rollouts;
+
+        /**
+         * Constructs the search of one thread.
+         *
+         * @param game     the game to search, which is only forked
+         * @param random   the source of the random numbers of this thread
+         * @param deadline the value of {@link System#nanoTime()} at which the search stops
+         */
+        private Search(Game game, SplitMixRandom random, long deadline) {
+            this.game = game;
+            this.observer = game.getCurrentPlayer();
+            this.random = random;
+            this.deadline = deadline;
+            this.root = new Node(0, -1);
+            this.rootScores = game.getPlayersScore();
+        }
+
+        /**
+         * Runs iterations until the deadline, and at least one.
+         *
+         * @return this search, with its tree and its number of rollouts
+         */
+        private Search run() {
+            do {
+                iterate();
+                rollouts++;
+            } while (System.nanoTime() < deadline);
+            return this;
+        }
+
+        /**
+         * Runs one iteration: a determinization, a walk down the tree, a rollout and the update of the walk.
+         */
+        private void iterate() {
+            var copy = game.fork(random.split());
+            copy.redrawHiddenTiles(observer);
+            var path = new ArrayList<Node>();
+            var node = root;
+            var turns = 0;
+            var expanded = false;
+            while (!expanded && turns < HORIZON && !copy.isOver()) {
+                var player = copy.getCurrentPlayer();
+                var moves = bestMoves(copy.getCurrentPlayerMoves());
+                Move chosen = null;
+                Node next = null;
+                var untried = 0;
+                for (Move move : moves) {
+                    var child = node.children.get(keyOf(move));
+                    if (child != null) {
+                        child.availability++;
+                    } else if (chosen == null || move.score() > chosen.score()) {
+                        chosen = move;
+                        untried++;
+                    }
+                }
+                if (moves.isEmpty()) {
+                    next = node.children.computeIfAbsent(0L, key -> new Node(key, player));
+                    next.availability++;
+                } else if (untried > 0) {
+                    next = new Node(keyOf(chosen), player);
+                    next.availability++;
+                    node.children.put(next.key, next);
+                    expanded = true;
+                } else {
+                    for (Move move : moves) {
+                        var child = node.children.get(keyOf(move));
+                        if (next == null || child.upperBound() > next.upperBound()) {
+                            next = child;
+                            chosen = move;
+                        }
+                    }
+                }
+                play(copy, chosen);
+                path.add(next);
+                node = next;
+                turns++;
+            }
+            for (; turns < HORIZON && !copy.isOver(); turns++) {
+                play(copy, rolloutMove(copy.getCurrentPlayerMoves()));
+            }
+            var scores = copy.getPlayersScore();
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] -= rootScores[i];
+            }
+            for (Node visited : path) {
+                visited.visits++;
+                visited.results += resultOf(scoreDifference(scores, visited.player));
+            }
+        }
+
+        /**
+         * Chooses the move of a player of a rollout: the best move, or sometimes a random one.
+         *
+         * @param moves the legal moves of the player
+         * @return the move chosen, or null to pass
+         */
+        private Move rolloutMove(List<Move> moves) {
+            if (moves.isEmpty()) {
+                return null;
+            }
+            if (random.nextDouble() < RANDOM_MOVE_CHANCE) {
+                return moves.get(random.nextInt(moves.size()));
+            }
+            var best = moves.get(0);
+            for (Move move : moves) {
+                if (move.score() > best.score()) {
+                    best = move;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays a move on a determinization, or passes.
+         *
+         * @param copy the determinization
+         * @param move the move to play, or null to pass
+         */
+        private static void play(Game copy, Move move) {
+            if (move == null) {
+                copy.pass();
+            } else {
+                copy.play(move);
+            }
+        }
+
+        /**
+         * Returns the score of a player minus the best score of the other players.
+         *
+         * @param scores the points won by the players since the root
+         * @param player the index of the player
+         * @return the difference of scores
+         */
+        private static int scoreDifference(int[] scores, int player) {
+            var best = Integer.MIN_VALUE;
+            for (int i = 0; i < scores.length; i++) {
+                if (i != player) {
+                    best = Math.max(best, scores[i]);
+                }
+            }
+            return best == Integer.MIN_VALUE ? scores[player] : scores[player] - best;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package g60904.qwirkle.model;
+
+/**
+ * A record that represents a legal move of a player, as found by the {@link MoveGenerator}.
+ * <p>
+ * The tiles of a move are all placed on the same line, in the given direction, in the order of the placements.
+ * A move of a single tile is a single placement, and the first move of a game is placed from the origin of the grid.
+ * The hand indexes tell which tile of the hand of the player goes to each placement, so the move can be played
+ * with {@link Game#play(Move)} as long as the hand and the grid did not change.
+ *
+ * @param placements   the tiles of the move with their positions, in the order they are placed
+ * @param handIndexes  the index in the hand of the player of the tile of each placement
+ * @param direction    the direction in which the tiles follow each other, {@link Direction#RIGHT} or {@link Direction#DOWN}
+ * @param score        the points the move scores
+ */
+public record Move(TileAtPosition[] placements, int[] handIndexes, Direction direction, int score) {
+    /**
+     * Returns the number of tiles placed by the move.
+     *
+     * @return the number of tiles of the move
+     */
+    public int size() {
+        return placements.length;
+    }
+
+    /**
+     * Returns the key of the move: the exclusive or of the Zobrist keys of its tiles on their cells.
+     * Two moves that place the same tiles on the same cells have the same key, whatever the hands they come from,
+     * so a search can recognize a move in positions where the hands of the players are different.
+     *
+     * @return the key of the move
+     */
+    long key() {
+        var key = 0L;
+        for (TileAtPosition placement : placements) {
+            var cell = ChunkedBoard.pack(placement.row() - Grid.ORIGIN_ROW, placement.col() - Grid.ORIGIN_COL);
+            key ^= Zobrist.gridTile(cell, placement.tile().kind());
+        }
+        return key;
+    }
+}
@@ -0,0 +1,106 @@
+package g60904.qwirkle.model;
+
+/**
+ * An enumeration of the reasons why a move can be refused.
+ * <p>
+ * The {@code try} and {@code validate} methods of {@link Grid} and {@link Game} do not throw when a move is refused:
+ * they return an {@code int} that is the score of the move when it is positive or zero, and the {@link #code()}
+ * of the reason of the refusal when it is negative. No object is created, so probing many moves stays cheap.
+ * The methods that throw a {@link QwirkleException} are kept for the console application and use {@link #check(int)},
+ * or the refusal of {@link Grid}, which tells the position that refused the move.
+ */
+public enum MoveError {
+    GRID_NOT_EMPTY("This method can only be called when the Grid is empty."),
+    FIRST_MOVE_REQUIRED("You need to use first add to do the first move"),
+    OUTSIDE_GRID("A position is outside the grid", "The position (%d, %d) is outside the grid"),
+    POSITION_OCCUPIED("A position already contains a tile", "The position (%d, %d) already contains a tile"),
+    BREAKS_RULES("Tiles doesn't respect rules, no tile have been placed"),
+    NOT_IN_HAND("A tile you chose is not in your hand"),
+    WRONG_ARGUMENTS("The number of arguments is incorrect. Please try again.");
+    private static final MoveError[] BY_CODE = values();
+    private final String message;
+    private final String positionMessage;
+
+    /**
+     * Constructs a reason of refusal with the message shown to the player.
+     *
+     * @param message the message of the reason
+     */
+    MoveError(String message) {
+        this(message, null);
+    }
+
+    /**
+     * Constructs a reason of refusal caused by a position, with the message shown to the player when the position
+     * is not known and the one that tells it.
+     *
+     * @param message         the message of the reason
+     * @param positionMessage the message of the reason, with a {@code %d} for the row and one for the column
+     */
+    MoveError(String message, String positionMessage) {
+        this.message = message;
+        this.positionMessage = positionMessage;
+    }
+
+    /**
+     * Returns the negative code of the reason, as returned by the {@code try} and {@code validate} methods.
+     *
+     * @return the code of the reason, -1 for the first reason, -2 for the second one and so on
+     */
+    public int code() {
+        return -ordinal() - 1;
+    }
+
+    /**
+     * Returns the message shown to the player when a move is refused for this reason.
+     *
+     * @return the message of the reason
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the message shown to the player when a move is refused for this reason at the given position.
+     *
+     * @param row the row of the position that refused the move
+     * @param col the column of the position that refused the move
+     * @return the message of the reason, with the position when the reason is caused by one
+     */
+    public String getMessage(int row, int col) {
+        return positionMessage == null ? message : positionMessage.formatted(row, col);
+    }
+
+    /**
+     * Checks if the reason is caused by a position of the move: a position outside the grid or already holding a tile.
+     *
+     * @return {@code true} if the reason is caused by a position
+     */
+    public boolean isCausedByPosition() {
+        return positionMessage != null;
+    }
+
+    /**
+     * Returns the reason of a refused move from the result of a {@code try} or {@code validate} method.
+     *
+     * @param result the result of the method
+     * @return the reason of the refusal, or {@code null} if the result is a score
+     */
+    public static MoveError of(int result) {
+        return result >= 0 ? null : BY_CODE[-result - 1];
+    }
+
+    /**
+     * Returns the score of an accepted move, or throws the reason of a refused one.
+     *
+     * @param result the result of a {@code try} method
+     * @return the score of the move
+     * @throws QwirkleException if the move was refused
+     */
+    public static int check(int result) throws QwirkleException {
+        if (result < 0) {
+            throw new QwirkleException(of(result).getMessage());
+        }
+        return result;
+    }
+}
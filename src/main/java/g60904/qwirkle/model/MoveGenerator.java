@@ -0,0 +1,168 @@
+package g60904.qwirkle.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MoveGenerator class lists every legal move a hand can make on a grid, with its score.
+ * <p>
+ * A move puts its tiles on the empty cells of a single line, so that they form one run together with the tiles
+ * they pass over, and at least one of its tiles is placed on an anchor of the grid. Each move is built from the
+ * first anchor it covers, going right for rows and down for columns: it starts on that anchor, or on one of the
+ * empty cells before it that are not anchors themselves, and is extended one empty cell at a time by a depth-first
+ * search. Only the kinds of tiles that keep the main line and the crossing line legal are tried on each cell,
+ * so the search stops as soon as no tile of the hand can follow. Nothing is placed on the grid: the lines are checked
+ * with their {@link LineMask}, and the score is computed from their lengths as the {@link ScoreCalculator} does.
+ * <p>
+ * The tiles of the hand that are the same kind are interchangeable, so only the first of them is used.
+ * A move of a single tile is listed once, with the direction {@link Direction#RIGHT}. On an empty grid, the first
+ * moves are listed from the origin of the grid going right, one for each ordered set of tiles.
+ */
+public class MoveGenerator {
+    private final Grid grid;
+    private List<Tile> hand;
+    private List<Move> moves;
+    private final int[] handIndexOfKind = new int[Tile.KINDS];
+    private int[] rows;
+    private int[] cols;
+    private int[] kinds;
+    private Direction direction;
+    private boolean singlesToo;
+
+    /**
+     * Constructs a move generator for the given grid. The grid is read each time moves are generated.
+     *
+     * @param grid the grid on which the moves are played
+     */
+    public MoveGenerator(Grid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Lists every legal move the given hand can make on the grid.
+     *
+     * @param hand the hand of the player, as returned by {@link Player#getHand()}
+     * @return the legal moves, each with its score, in no particular order
+     */
+    public List<Move> generate(List<Tile> hand) {
+        this.hand = hand;
+        moves = new ArrayList<>();
+        var handKinds = 0L;
+        for (int i = hand.size() - 1; i >= 0; i--) {
+            var kind = hand.get(i).kind();
+            handKinds |= 1L << kind;
+            handIndexOfKind[kind] = i;
+        }
+        var maxTiles = Long.bitCount(handKinds);
+        rows = new int[maxTiles];
+        cols = new int[maxTiles];
+        kinds = new int[maxTiles];
+        if (grid.isEmpty()) {
+            direction = Direction.RIGHT;
+            singlesToo = true;
+            extend(Grid.ORIGIN_ROW, Grid.ORIGIN_COL, LineMask.EMPTY, handKinds, 0, 0, true);
+            return moves;
+        }
+        for (int i = 0; i < grid.getAnchorCount(); i++) {
+            generateFromAnchor(grid.getAnchorRow(i), grid.getAnchorCol(i), Direction.RIGHT, handKinds, maxTiles);
+            generateFromAnchor(grid.getAnchorRow(i), grid.getAnchorCol(i), Direction.DOWN, handKinds, maxTiles);
+        }
+        return moves;
+    }
+
+    /**
+     * Lists the moves of a line whose first anchor is the given one: the moves starting on the anchor,
+     * and the moves starting on the empty cells right before it that are not anchors.
+     *
+     * @param row       the row of the anchor
+     * @param col       the column of the anchor
+     * @param d         the direction of the line, {@link Direction#RIGHT} or {@link Direction#DOWN}
+     * @param handKinds the kinds of tiles of the hand
+     * @param maxTiles  the largest number of tiles a move of the hand can place
+     */
+    private void generateFromAnchor(int row, int col, Direction d, long handKinds, int maxTiles) {
+        direction = d;
+        singlesToo = d == Direction.RIGHT;
+        extend(row, col, grid.lineNextTo(row, col, d.opposite()), handKinds, 0, 0, false);
+        for (int back = 1; back < maxTiles; back++) {
+            var startRow = row - back * d.getDeltaRow();
+            var startCol = col - back * d.getDeltaCol();
+            if (grid.isOccupied(startRow, startCol) || grid.isAnchor(startRow, startCol)) {
+                return;
+            }
+            extend(startRow, startCol, LineMask.EMPTY, handKinds, 0, 0, false);
+        }
+    }
+
+    /**
+     * Tries every tile of the hand that can go on an empty cell, records the moves ending there, and goes on
+     * with the next empty cell of the line.
+     *
+     * @param row         the row of the cell
+     * @param col         the column of the cell
+     * @param mainLine    the main line so far, made of the tiles before the cell and the tiles already placed
+     * @param remaining   the kinds of tiles of the hand not placed yet
+     * @param placed      the number of tiles already placed
+     * @param crossPoints the points of the crossing lines of the tiles already placed
+     * @param touches     whether a tile already placed touches a tile of the grid
+     */
+    private void extend(int row, int col, long mainLine, long remaining, int placed, int crossPoints,
+                        boolean touches) {
+        var across = direction == Direction.RIGHT ? Direction.DOWN : Direction.RIGHT;
+        var crossLine = LineMask.merge(grid.lineNextTo(row, col, across.opposite()),
+                grid.lineNextTo(row, col, across));
+        var after = grid.lineNextTo(row, col, direction);
+        var candidates = remaining & LineMask.allowedKinds(mainLine) & LineMask.allowedKinds(crossLine);
+        var crossLinePoints = ScoreCalculator.linePoints(LineMask.length(crossLine) + 1);
+        var nextStep = LineMask.length(after) + 1;
+        var firstMove = grid.isEmpty();
+        for (long left = candidates; left != 0; left &= left - 1) {
+            var kind = Long.numberOfTrailingZeros(left);
+            var line = LineMask.merge(LineMask.merge(mainLine, LineMask.of(kind)), after);
+            if (!LineMask.isLegal(line)) {
+                continue;
+            }
+            rows[placed] = row;
+            cols[placed] = col;
+            kinds[placed] = kind;
+            var count = placed + 1;
+            var touching = touches || crossLine != LineMask.EMPTY || LineMask.length(line) > count;
+            if ((touching || firstMove) && (count > 1 || singlesToo)) {
+                record(count, score(line, count, crossPoints + crossLinePoints));
+            }
+            var rest = remaining & ~(1L << kind) & LineMask.allowedKinds(line);
+            if (rest != 0) {
+                extend(row + nextStep * direction.getDeltaRow(), col + nextStep * direction.getDeltaCol(),
+                        line, rest, count, crossPoints + crossLinePoints, touching);
+            }
+        }
+    }
+
+    /**
+     * Computes the score of a move as the {@link ScoreCalculator} does.
+     *
+     * @param mainLine    the main line of the move
+     * @param count       the number of tiles of the move
+     * @param crossPoints the points of the crossing lines of the tiles of the move
+     * @return the score of the move
+     */
+    private int score(long mainLine, int count, int crossPoints) {
+        return Math.max(ScoreCalculator.linePoints(LineMask.length(mainLine)) + crossPoints, 1);
+    }
+
+    /**
+     * Adds the move made of the tiles placed so far to the list of moves.
+     *
+     * @param count the number of tiles of the move
+     * @param score the score of the move
+     */
+    private void record(int count, int score) {
+        var placements = new TileAtPosition[count];
+        var handIndexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            handIndexes[i] = handIndexOfKind[kinds[i]];
+            placements[i] = new TileAtPosition(rows[i], cols[i], hand.get(handIndexes[i]));
+        }
+        moves.add(new Move(placements, handIndexes, direction, score));
+    }
+}
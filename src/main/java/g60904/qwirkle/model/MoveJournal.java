@@ -0,0 +1,517 @@
+package g60904.qwirkle.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * The MoveJournal class writes every turn of a game to an append-only file, so that a game can be recovered
+ * after a crash without having been saved.
+ * <p>
+ * The file starts with the magic number {@code QWKJ} and the version of its format, followed by records. Each turn
+ * of the game is a record of a few bytes: a pass, a move with the packed cell and the kind of each of its tiles,
+ * or an undo. A snapshot of the whole game, in the format of {@link GameCodec} with its length and its CRC-32C,
+ * is written first and then every {@code snapshotInterval} turns. A game is recovered by reading its last
+ * snapshot and playing again the turns written after it, which draw the same tiles as they did. The records cut
+ * short by a crash, at the end of the file, are left out.
+ * <p>
+ * The game writes its records into a buffer in memory, which costs no more than copying a few bytes.
+ * A thread of the journal writes the buffer to the file and forces it to the disk every {@value #FLUSH_PERIOD}
+ * milliseconds, so a crash loses at most the turns of that time, and the turns never wait for the disk.
+ * An error of that thread is thrown by the next {@link #flush()} or by {@link #close()}.
+ */
+public final class MoveJournal implements Closeable {
+    /**
+     * The first four bytes of a journal, "QWKJ" in ASCII.
+     */
+    static final int MAGIC = 0x51574B4A;
+    /**
+     * The version of the format written.
+     */
+    static final byte VERSION = 1;
+    /**
+     * The number of turns between two snapshots when none is given.
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+    /**
+     * The time, in milliseconds, between two writes of the buffer to the disk.
+     */
+    private static final long FLUSH_PERIOD = 100;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    private static final byte PASS = 1;
+    private static final byte MOVE = 2;
+    private static final byte UNDO = 3;
+    private static final byte SNAPSHOT = 4;
+    private final FileChannel channel;
+    private final Game game;
+    private final int snapshotInterval;
+    private final ScheduledExecutorService flusher;
+    private final Object appendLock = new Object();
+    private final Object flushLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private ByteBuffer writing = ByteBuffer.allocate(4096);
+    private int turnsSinceSnapshot;
+    private volatile QwirkleException failure;
+
+    /**
+     * The state found in a journal: the game recovered, where its last readable record ends,
+     * and the number of turns played since its last snapshot.
+     *
+     * @param game               the game recovered
+     * @param end                the position in the file of the end of the last record read
+     * @param turnsSinceSnapshot the number of turns played after the last snapshot and not undone
+     */
+    private record Recovery(Game game, int end, int turnsSinceSnapshot) {
+    }
+
+    /**
+     * Constructs a journal writing to an open file, and attaches it to the game.
+     *
+     * @param channel            the file of the journal, positioned at its end
+     * @param game               the game whose turns are written
+     * @param snapshotInterval   the number of turns between two snapshots
+     * @param turnsSinceSnapshot the number of turns already written since the last snapshot
+     */
+    private MoveJournal(FileChannel channel, Game game, int snapshotInterval, int turnsSinceSnapshot) {
+        this.channel = channel;
+        this.game = game;
+        this.snapshotInterval = snapshotInterval;
+        this.turnsSinceSnapshot = turnsSinceSnapshot;
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "qwirkle-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground, FLUSH_PERIOD, FLUSH_PERIOD, TimeUnit.MILLISECONDS);
+        game.setMoveJournal(this);
+    }
+
+    /**
+     * Creates a journal for a game, with a snapshot every {@value #DEFAULT_SNAPSHOT_INTERVAL} turns.
+     *
+     * @param path the path of the file of the journal, replaced if it already exists
+     * @param game the game whose turns are written from now on
+     * @return the journal, attached to the game
+     * @throws QwirkleException if the file cannot be written or the game already has a journal
+     */
+    public static MoveJournal create(Path path, Game game) throws QwirkleException {
+        return create(path, game, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Creates a journal for a game, which starts with a snapshot of the game.
+     *
+     * @param path             the path of the file of the journal, replaced if it already exists
+     * @param game             the game whose turns are written from now on
+     * @param snapshotInterval the number of turns between two snapshots
+     * @return the journal, attached to the game
+     * @throws QwirkleException if the file cannot be written, the game already has a journal
+     *                          or the interval is not positive
+     */
+    public static MoveJournal create(Path path, Game game, int snapshotInterval) throws QwirkleException {
+        if (snapshotInterval < 1) {
+            throw new QwirkleException("The interval between two snapshots must be at least one turn.");
+        }
+        if (game.getMoveJournal() != null) {
+            throw new QwirkleException("The game already has a journal.");
+        }
+        try {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            var journal = new MoveJournal(channel, game, snapshotInterval, 0);
+            synchronized (journal.appendLock) {
+                journal.pending.putInt(MAGIC);
+                journal.pending.put(VERSION);
+                journal.appendSnapshot();
+            }
+            journal.flush();
+            return journal;
+        } catch (IOException e) {
+            throw new QwirkleException("Error while creating the journal of the game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the journal of a game that was not closed, recovers the game and goes on writing its turns
+     * after the last record that could be read.
+     *
+     * @param path the path of the file of the journal
+     * @return the journal, attached to the game recovered, which {@link #getGame()} returns
+     * @throws QwirkleException if the file cannot be read or written, or holds no snapshot
+     */
+    public static MoveJournal open(Path path) throws QwirkleException {
+        return open(path, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens the journal of a game that was not closed, recovers the game and goes on writing its turns
+     * after the last record that could be read. The records cut short by a crash are removed from the file.
+     *
+     * @param path             the path of the file of the journal
+     * @param snapshotInterval the number of turns between two snapshots
+     * @return the journal, attached to the game recovered, which {@link #getGame()} returns
+     * @throws QwirkleException if the file cannot be read or written, holds no snapshot
+     *                          or the interval is not positive
+     */
+    public static MoveJournal open(Path path, int snapshotInterval) throws QwirkleException {
+        if (snapshotInterval < 1) {
+            throw new QwirkleException("The interval between two snapshots must be at least one turn.");
+        }
+        var recovery = readJournal(path);
+        try {
+            var channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.truncate(recovery.end());
+            channel.position(recovery.end());
+            return new MoveJournal(channel, recovery.game(), snapshotInterval, recovery.turnsSinceSnapshot());
+        } catch (IOException e) {
+            throw new QwirkleException("Error while opening the journal of the game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recovers the game written in a journal, without changing the file.
+     *
+     * @param path the path of the file of the journal
+     * @return the game as it was after the last turn written
+     * @throws QwirkleException if the file cannot be read or holds no snapshot
+     */
+    public static Game recover(Path path) throws QwirkleException {
+        return readJournal(path).game();
+    }
+
+    /**
+     * Returns the game whose turns are written.
+     *
+     * @return the game of the journal
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Writes down a turn of the game that was just played: a pass, or a move whose tiles are the last ones
+     * placed on the grid. A snapshot follows when {@code snapshotInterval} turns were written since the last one.
+     *
+     * @param tileCount the number of tiles of the move, 0 for a pass
+     */
+    void recordTurn(int tileCount) {
+        synchronized (appendLock) {
+            if (tileCount == 0) {
+                ensureRoom(1);
+                pending.put(PASS);
+            } else {
+                ensureRoom(2 + tileCount * (Integer.BYTES + 1));
+                pending.put(MOVE);
+                pending.put((byte) tileCount);
+                game.getGrid().writeLastTiles(pending, tileCount);
+            }
+            if (++turnsSinceSnapshot >= snapshotInterval) {
+                appendSnapshot();
+            }
+        }
+    }
+
+    /**
+     * Writes down that the last turn of the game was just undone. When that turn was played before the last
+     * snapshot, a snapshot of the game is written instead, as the journal could not undo it when it is read.
+     */
+    void recordUndo() {
+        synchronized (appendLock) {
+            if (turnsSinceSnapshot == 0) {
+                appendSnapshot();
+            } else {
+                ensureRoom(1);
+                pending.put(UNDO);
+                turnsSinceSnapshot--;
+            }
+        }
+    }
+
+    /**
+     * Writes the game, with its length and its checksum, to the buffer. The caller holds the append lock.
+     */
+    private void appendSnapshot() {
+        var bytes = GameCodec.encode(game);
+        var checksum = new CRC32C();
+        checksum.update(bytes.duplicate());
+        ensureRoom(1 + 2 * Integer.BYTES + bytes.remaining());
+        pending.put(SNAPSHOT);
+        pending.putInt(bytes.remaining());
+        pending.putInt((int) checksum.getValue());
+        pending.put(bytes);
+        turnsSinceSnapshot = 0;
+    }
+
+    /**
+     * Makes the buffer larger when fewer than the given number of bytes are left in it.
+     * The caller holds the append lock.
+     *
+     * @param bytes the number of bytes about to be written
+     */
+    private void ensureRoom(int bytes) {
+        if (pending.remaining() < bytes) {
+            var larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending = larger.put(pending.flip());
+        }
+    }
+
+    /**
+     * Writes the records of the buffer to the file and forces them to the disk. The game can go on writing
+     * records while the previous ones are being written.
+     *
+     * @throws QwirkleException if the file cannot be written, now or by the thread of the journal before
+     */
+    public void flush() throws QwirkleException {
+        if (failure != null) {
+            throw failure;
+        }
+        synchronized (flushLock) {
+            synchronized (appendLock) {
+                if (pending.position() == 0) {
+                    return;
+                }
+                var full = pending;
+                pending = writing;
+                writing = full;
+            }
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = new QwirkleException("Error while writing the journal of the game: " + e.getMessage());
+                throw failure;
+            } finally {
+                writing.clear();
+            }
+        }
+    }
+
+    /**
+     * Flushes the buffer from the thread of the journal, keeping the error for the game.
+     */
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (QwirkleException e) {
+            flusher.shutdown();
+        }
+    }
+
+    /**
+     * Writes the records left to the disk, closes the file and detaches the journal from the game.
+     * The file is kept, so the game can still be recovered from it.
+     *
+     * @throws QwirkleException if the file cannot be written, now or by the thread of the journal before
+     */
+    @Override
+    public void close() throws QwirkleException {
+        game.setMoveJournal(null);
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                failure = new QwirkleException("Error while closing the journal of the game: " + e.getMessage());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Reads a journal: finds its last snapshot that is whole, reads the game from it and plays again
+     * the turns written after it, up to the first record that cannot be read or played.
+     *
+     * @param path the path of the file of the journal
+     * @return the game recovered and where its records end
+     * @throws QwirkleException if the file cannot be read or holds no snapshot
+     */
+    private static Recovery readJournal(Path path) throws QwirkleException {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (IOException e) {
+            throw new QwirkleException("Error while reading the journal of the game, it may simply doesn't exist.");
+        }
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            throw new QwirkleException("The file is not a journal of a game of this version.");
+        }
+        var snapshot = -1;
+        var end = buffer.position();
+        for (int next = recordEnd(buffer, end); next >= 0; next = recordEnd(buffer, end)) {
+            if (buffer.get(end) == SNAPSHOT) {
+                snapshot = end;
+            }
+            end = next;
+        }
+        if (snapshot < 0) {
+            throw new QwirkleException("The journal holds no snapshot of the game.");
+        }
+        var length = buffer.getInt(snapshot + 1);
+        var game = GameCodec.decode(buffer.slice(snapshot + 1 + 2 * Integer.BYTES, length));
+        var position = snapshot + 1 + 2 * Integer.BYTES + length;
+        var turns = 0;
+        while (position < end) {
+            try {
+                turns += replay(game, buffer.position(position));
+            } catch (QwirkleException e) {
+                break;
+            }
+            position = buffer.position();
+        }
+        return new Recovery(game, position, turns);
+    }
+
+    /**
+     * Finds where the record starting at the given position ends, checking that it is whole.
+     *
+     * @param buffer the bytes of the journal
+     * @param start  the position of the record
+     * @return the position of the end of the record, or -1 if no whole record starts there
+     */
+    private static int recordEnd(ByteBuffer buffer, int start) {
+        if (start >= buffer.limit()) {
+            return -1;
+        }
+        var remaining = buffer.limit() - start - 1;
+        switch (buffer.get(start)) {
+            case PASS, UNDO -> {
+                return start + 1;
+            }
+            case MOVE -> {
+                if (remaining < 1) {
+                    return -1;
+                }
+                var size = 1 + buffer.get(start + 1) * (Integer.BYTES + 1);
+                return buffer.get(start + 1) > 0 && size <= remaining ? start + 1 + size : -1;
+            }
+            case SNAPSHOT -> {
+                if (remaining < 2 * Integer.BYTES) {
+                    return -1;
+                }
+                var length = buffer.getInt(start + 1);
+                if (length < 0 || length > remaining - 2 * Integer.BYTES) {
+                    return -1;
+                }
+                var checksum = new CRC32C();
+                checksum.update(buffer.slice(start + 1 + 2 * Integer.BYTES, length));
+                return (int) checksum.getValue() == buffer.getInt(start + 1 + Integer.BYTES)
+                        ? start + 1 + 2 * Integer.BYTES + length : -1;
+            }
+            default -> {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Plays again the turn of a record on the game.
+     *
+     * @param game   the game recovered
+     * @param buffer the bytes of the journal, positioned at the record, and left after it
+     * @return 1 for a pass or a move, -1 for an undo
+     * @throws QwirkleException if the turn cannot be played on the game
+     */
+    private static int replay(Game game, ByteBuffer buffer) throws QwirkleException {
+        try {
+            var type = buffer.get();
+            if (type == PASS) {
+                game.pass();
+                return 1;
+            }
+            if (type == UNDO) {
+                game.undo();
+                return -1;
+            }
+            if (type != MOVE) {
+                throw new QwirkleException("A snapshot cannot follow the last snapshot of the journal.");
+            }
+            var count = buffer.get();
+            var cells = new int[count];
+            var kinds = new int[count];
+            for (int i = 0; i < count; i++) {
+                cells[i] = buffer.getInt();
+                kinds[i] = buffer.get();
+            }
+            replayMove(game, cells, kinds);
+            return 1;
+        } catch (BufferUnderflowException e) {
+            throw new QwirkleException("The record is cut short.");
+        }
+    }
+
+    /**
+     * Plays again a move on the game, taking its tiles from the hand of the current player.
+     * The first move of the game is played from the origin, in the direction of its tiles.
+     *
+     * @param game  the game recovered
+     * @param cells the packed cell of each tile of the move
+     * @param kinds the kind of each tile of the move
+     * @throws QwirkleException if the tiles are not in the hand or the move is refused
+     */
+    private static void replayMove(Game game, int[] cells, int[] kinds) throws QwirkleException {
+        var hand = game.getCurrentPlayerHand();
+        var used = new boolean[hand.size()];
+        var indexes = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            indexes[i] = -1;
+            for (int j = 0; j < hand.size() && indexes[i] < 0; j++) {
+                if (!used[j] && hand.get(j).kind() == kinds[i]) {
+                    used[j] = true;
+                    indexes[i] = j;
+                }
+            }
+            if (indexes[i] < 0) {
+                throw new QwirkleException("A tile of the move is not in the hand of the player.");
+            }
+        }
+        if (game.getGrid().isEmpty()) {
+            game.first(directionOf(cells), indexes);
+            return;
+        }
+        var is = new int[cells.length * 3];
+        for (int i = 0; i < cells.length; i++) {
+            is[i * 3] = ChunkedBoard.rowOf(cells[i]) + Grid.ORIGIN_ROW;
+            is[i * 3 + 1] = ChunkedBoard.colOf(cells[i]) + Grid.ORIGIN_COL;
+            is[i * 3 + 2] = indexes[i];
+        }
+        game.play(is);
+    }
+
+    /**
+     * Finds the direction of the first move of a game from the cells of its tiles.
+     *
+     * @param cells the packed cell of each tile of the move, in the order they were placed
+     * @return the direction from the first tile to the second, or {@link Direction#RIGHT} for a single tile
+     */
+    private static Direction directionOf(int[] cells) {
+        if (cells.length > 1) {
+            var deltaRow = ChunkedBoard.rowOf(cells[1]) - ChunkedBoard.rowOf(cells[0]);
+            var deltaCol = ChunkedBoard.colOf(cells[1]) - ChunkedBoard.colOf(cells[0]);
+            for (Direction d : Direction.values()) {
+                if (d.getDeltaRow() == deltaRow && d.getDeltaCol() == deltaCol) {
+                    return d;
+                }
+            }
+        }
+        return Direction.RIGHT;
+    }
+}
@@ -1,6 +1,8 @@
 package g60904.qwirkle.model;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -9,6 +11,14 @@ import java.util.List;
  * The {@code Player} class represents a player in the Qwirkle game.
  */
 public class Player implements Serializable {
+    /**
+     * The tags written before the settings of the strategy of a player, one for each strategy that can be saved.
+     */
+    private static final byte HUMAN = 0;
+    private static final byte GREEDY = 1;
+    private static final byte MCTS = 2;
+    private static final byte EXPECTIMAX = 3;
+    private static final byte ENDGAME = 4;
     /**
      * The name of the player.
      */
@@ -19,6 +29,11 @@ public class Player implements Serializable {
     private final List<Tile> tiles;
 
     private int score;
+    /**
+     * The strategy that plays for the player, or null if the player is a human. It is saved by
+     * {@link #writeStrategy(ByteBuffer, PlayerStrategy)}, a strategy is not serializable.
+     */
+    private transient PlayerStrategy strategy;
 
     /**
      * Constructs a new player with the specified name.
@@ -30,6 +45,27 @@ public class Player implements Serializable {
         this.tiles = new ArrayList<>();
     }
 
+    /**
+     * Constructs a player with the same name, hand and score as the given one.
+     *
+     * @param other the player to copy
+     */
+    private Player(Player other) {
+        this.name = other.name;
+        this.tiles = new ArrayList<>(other.tiles);
+        this.score = other.score;
+        this.strategy = other.strategy;
+    }
+
+    /**
+     * Returns a copy of the player, whose hand and score change apart from the ones of this player.
+     *
+     * @return an independent copy of the player
+     */
+    public Player fork() {
+        return new Player(this);
+    }
+
     /**
      * Returns the name of the player.
      *
@@ -47,6 +83,24 @@ public class Player implements Serializable {
     public List<Tile> getHand() {
         return Collections.unmodifiableList(tiles);
     }
+    /**
+     * Returns the strategy that plays for the player.
+     *
+     * @return the strategy of the player, or null if the player is a human
+     */
+    public PlayerStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Sets the strategy that plays for the player.
+     *
+     * @param strategy the strategy of the player, or null if the player is a human
+     */
+    public void setStrategy(PlayerStrategy strategy) {
+        this.strategy = strategy;
+    }
+
     /**
      * Returns the score of the player.
      *
@@ -57,17 +111,211 @@ public class Player implements Serializable {
     }
 
     /**
-     * Refills the player's hand by adding new random tiles from the bag.
+     * Refills the player's hand by adding new random tiles from the bag of the game.
+     * The tiles drawn are added at the end of the hand.
+     *
+     * @param bag the bag of the game the player plays
+     * @return the number of tiles drawn
      */
-    public void refill() {
-        var array = Bag.getInstance().getRandomTiles(-(tiles.size() - 7));
+    public int refill(Bag bag) {
+        var array = bag.getRandomTiles(-(tiles.size() - 7));
+        var drawn = 0;
         for (Tile tile : array) {
+            if (tile != null) {
+                tiles.add(tile);
+                drawn++;
+            }
+        }
+        return drawn;
+    }
+
+    /**
+     * Computes the Zobrist key of the hand of the player, which does not depend on the order of its tiles.
+     * A hand holds at most seven tiles, so the key is computed again each time it is asked for.
+     *
+     * @param seat the index of the player in the game
+     * @return the Zobrist key of the hand
+     */
+    long getHandKey(int seat) {
+        var key = 0L;
+        for (int i = 0; i < tiles.size(); i++) {
+            var kind = tiles.get(i).kind();
+            var copy = 0;
+            for (int j = 0; j < i; j++) {
+                if (tiles.get(j).kind() == kind) {
+                    copy++;
+                }
+            }
+            key ^= Zobrist.handTile(seat, kind, copy);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(ByteBuffer)}: the name, the score, the strategy
+     * and the hand.
+     *
+     * @return the size of the player in a saved game
+     * @throws QwirkleException if the player is played by a strategy that cannot be saved
+     */
+    int encodedSize() throws QwirkleException {
+        return Short.BYTES + name.getBytes(StandardCharsets.UTF_8).length + Integer.BYTES + strategySize(strategy)
+                + 1 + tiles.size();
+    }
+
+    /**
+     * Writes the name of the player in UTF-8 after its length, the score, the strategy that plays for the player,
+     * and the kind of each tile of the hand after their number.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedSize()} bytes left
+     */
+    void writeTo(ByteBuffer buffer) {
+        var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) nameBytes.length);
+        buffer.put(nameBytes);
+        buffer.putInt(score);
+        writeStrategy(buffer, strategy);
+        buffer.put((byte) tiles.size());
+        for (Tile tile : tiles) {
+            buffer.put((byte) tile.kind());
+        }
+    }
+
+    /**
+     * Reads a player written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the player read
+     * @throws QwirkleException if the bytes read are not a player
+     */
+    static Player readFrom(ByteBuffer buffer) throws QwirkleException {
+        var nameBytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(nameBytes);
+        var player = new Player(new String(nameBytes, StandardCharsets.UTF_8));
+        player.score = buffer.getInt();
+        player.strategy = readStrategy(buffer);
+        var handSize = buffer.get();
+        if (handSize < 0 || handSize > buffer.remaining()) {
+            throw new QwirkleException("The hand of a player of the saved game is corrupted.");
+        }
+        for (int i = 0; i < handSize; i++) {
+            var kind = buffer.get();
+            if (kind < 0 || kind >= Tile.KINDS) {
+                throw new QwirkleException("The hand of a player of the saved game is corrupted.");
+            }
+            player.tiles.add(Tile.ofKind(kind));
+        }
+        return player;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeStrategy(ByteBuffer, PlayerStrategy)} for a strategy.
+     *
+     * @param strategy the strategy, or null for a human
+     * @return the size of the strategy in a saved game
+     * @throws QwirkleException if the strategy is not one of the strategies of the game, which cannot be saved
+     */
+    static int strategySize(PlayerStrategy strategy) throws QwirkleException {
+        if (strategy == null || strategy instanceof GreedyStrategy) {
+            return 1;
+        } else if (strategy instanceof MctsStrategy mcts) {
+            return 1 + mcts.encodedSize();
+        } else if (strategy instanceof ExpectimaxStrategy expectimax) {
+            return 1 + expectimax.encodedSize();
+        } else if (strategy instanceof EndgameSolver solver) {
+            return 1 + solver.encodedSize();
+        }
+        throw new QwirkleException("The strategy " + strategy.getClass().getSimpleName() + " cannot be saved.");
+    }
+
+    /**
+     * Writes a strategy: a tag telling which strategy it is, or a human, and then its settings,
+     * so that the strategy read back plays as this one.
+     *
+     * @param buffer   the buffer to write to, with at least {@link #strategySize(PlayerStrategy)} bytes left
+     * @param strategy the strategy, or null for a human
+     */
+    static void writeStrategy(ByteBuffer buffer, PlayerStrategy strategy) {
+        if (strategy == null) {
+            buffer.put(HUMAN);
+        } else if (strategy instanceof GreedyStrategy) {
+            buffer.put(GREEDY);
+        } else if (strategy instanceof MctsStrategy mcts) {
+            buffer.put(MCTS);
+            mcts.writeTo(buffer);
+        } else if (strategy instanceof ExpectimaxStrategy expectimax) {
+            buffer.put(EXPECTIMAX);
+            expectimax.writeTo(buffer);
+        } else if (strategy instanceof EndgameSolver solver) {
+            buffer.put(ENDGAME);
+            solver.writeTo(buffer);
+        }
+    }
+
+    /**
+     * Reads a strategy written by {@link #writeStrategy(ByteBuffer, PlayerStrategy)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the strategy read, or null for a human
+     * @throws QwirkleException if the bytes read are not a strategy
+     */
+    static PlayerStrategy readStrategy(ByteBuffer buffer) throws QwirkleException {
+        return switch (buffer.get()) {
+            case HUMAN -> null;
+            case GREEDY -> new GreedyStrategy();
+            case MCTS -> MctsStrategy.readFrom(buffer);
+            case EXPECTIMAX -> ExpectimaxStrategy.readFrom(buffer);
+            case ENDGAME -> EndgameSolver.readFrom(buffer);
+            default -> throw new QwirkleException("The strategy of a player of the saved game is corrupted.");
+        };
+    }
+
+    /**
+     * Draws the given number of tiles from the bag, or fewer if the bag is emptied first.
+     * The tiles drawn are added at the end of the hand.
+     *
+     * @param bag   the bag to draw from
+     * @param count the number of tiles to draw
+     */
+    void draw(Bag bag, int count) {
+        for (Tile tile : bag.getRandomTiles(count)) {
             if (tile != null) {
                 tiles.add(tile);
             }
         }
     }
 
+    /**
+     * Removes the first tile of the hand equal to the given one.
+     *
+     * @param tile the tile to remove
+     * @return the index the tile had in the hand, so that it can be put back at the same place
+     */
+    int removeTile(Tile tile) {
+        var index = tiles.indexOf(tile);
+        tiles.remove(index);
+        return index;
+    }
+
+    /**
+     * Puts a tile back in the hand at the given index.
+     *
+     * @param index the index of the tile in the hand
+     * @param tile  the tile to put back
+     */
+    void insertTile(int index, Tile tile) {
+        tiles.add(index, tile);
+    }
+
+    /**
+     * Removes the last tile of the hand, the last one drawn.
+     *
+     * @return the tile removed
+     */
+    Tile removeLastTile() {
+        return tiles.remove(tiles.size() - 1);
+    }
+
     /**
      * Removes the specified tiles from the player's hand.
      *
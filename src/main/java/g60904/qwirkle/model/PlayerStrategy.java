@@ -0,0 +1,22 @@
+package g60904.qwirkle.model;
+
+/**
+ * A strategy chooses the moves of a player who is not played by a human, a bot.
+ * <p>
+ * A player of a {@link Game} is given a strategy with {@link Game#setStrategy(int, PlayerStrategy)}, and each of
+ * their turns is then played by {@link Game#playBotTurn()}, which asks the strategy for a move. The strategy may
+ * look at the game, or play on a {@link Game#fork()} of it, but it must not play on the game itself.
+ * <p>
+ * A strategy is not serialized: a saved game holds which of the strategies of the game plays for each bot, with
+ * its settings, and the strategy is built again when the game is read back (see {@link GameCodec}). Only these
+ * strategies can be saved, and a game whose bot is played by another one is refused.
+ */
+public interface PlayerStrategy {
+    /**
+     * Chooses the move of the current player of the game.
+     *
+     * @param game the game, whose current player is the one to play
+     * @return a legal move of the current player, or {@code null} to pass
+     */
+    Move chooseMove(Game game);
+}
@@ -0,0 +1,83 @@
+package g60904.qwirkle.model;
+
+import java.io.Serializable;
+
+/**
+ * The ScoreCalculator class computes the points of a move from the lengths of the lines it touches.
+ * The {@link Grid} tells it, for each tile of the move, the length of the row and of the column the tile belongs to
+ * once it is placed. All the tiles of a move are on the same line, so the crossing lines of different tiles are
+ * different lines, and the main line of the move is the line of the last tile placed.
+ * <p>
+ * A move scores one point for each tile of each line of at least two tiles it makes or extends, or one point
+ * if it makes no such line. Each of these lines that holds a tile of every color or of every shape
+ * (a Qwirkle) scores {@value #QWIRKLE_BONUS} more points.
+ */
+final class ScoreCalculator implements Serializable {
+    /**
+     * The length of a complete line, which holds a tile of every color or of every shape.
+     */
+    static final int QWIRKLE_LENGTH = 7;
+    /**
+     * The points added for each complete line made or extended by a move.
+     */
+    static final int QWIRKLE_BONUS = 7;
+    private int placed;
+    private int lastRowLength;
+    private int lastColLength;
+    private int rowPoints;
+    private int colPoints;
+
+    /**
+     * Forgets the tiles of the previous move.
+     */
+    void reset() {
+        placed = 0;
+        rowPoints = 0;
+        colPoints = 0;
+    }
+
+    /**
+     * Records a tile of the move.
+     *
+     * @param rowLength the length of the row of the tile, the tile included
+     * @param colLength the length of the column of the tile, the tile included
+     */
+    void place(int rowLength, int colLength) {
+        placed++;
+        lastRowLength = rowLength;
+        lastColLength = colLength;
+        rowPoints += linePoints(rowLength);
+        colPoints += linePoints(colLength);
+    }
+
+    /**
+     * Returns the points of the move made of the tiles recorded since the last reset.
+     *
+     * @param horizontal whether the tiles were placed in a row, ignored for a move of a single tile
+     * @return the points of the move
+     */
+    int score(boolean horizontal) {
+        int points;
+        if (placed == 1) {
+            points = rowPoints + colPoints;
+        } else if (horizontal) {
+            points = linePoints(lastRowLength) + colPoints;
+        } else {
+            points = linePoints(lastColLength) + rowPoints;
+        }
+        return Math.max(points, 1);
+    }
+
+    /**
+     * Returns the points of a line made or extended by a move.
+     *
+     * @param length the length of the line
+     * @return the length of the line plus the bonus of a complete line, or 0 for a line of a single tile
+     */
+    static int linePoints(int length) {
+        if (length < 2) {
+            return 0;
+        }
+        return length == QWIRKLE_LENGTH ? length + QWIRKLE_BONUS : length;
+    }
+}
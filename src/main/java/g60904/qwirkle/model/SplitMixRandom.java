@@ -0,0 +1,153 @@
+package g60904.qwirkle.model;
+
+import java.io.Serializable;
+import java.util.random.RandomGenerator;
+
+/**
+ * The SplitMixRandom class is a seedable and splittable source of random numbers, used by a game to draw its tiles.
+ * <p>
+ * It is the SplitMix64 algorithm, the one of {@link java.util.SplittableRandom}: the state is a single number that
+ * grows by a constant step, the gamma, at each draw, and each number returned is a mix of the bits of the state.
+ * The same seed always gives the same numbers, so a game can be replayed from its seed and its moves.
+ * {@link #split()} returns a new source, with its own state and gamma, whose numbers do not depend on the numbers
+ * drawn from this source afterwards, so each simulation of a game can get its own source and draw from it on its
+ * own thread. Unlike {@link java.util.SplittableRandom}, it is serializable, so it is saved with the game.
+ * <p>
+ * A source must not be used by several threads at the same time: each thread splits its own.
+ */
+public final class SplitMixRandom implements RandomGenerator, Serializable {
+    /**
+     * The gamma of a source created from a seed, the golden ratio scaled to 64 bits.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private long seed;
+    private final long gamma;
+
+    /**
+     * Constructs a source of random numbers from a seed.
+     *
+     * @param seed the seed of the source
+     */
+    public SplitMixRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Constructs a source of random numbers from a state and a gamma.
+     *
+     * @param seed  the initial state of the source
+     * @param gamma the step added to the state at each draw, an odd number
+     */
+    private SplitMixRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Returns a copy of the source, which returns the same numbers as this source from now on.
+     *
+     * @return a copy of the source
+     */
+    public SplitMixRandom copy() {
+        return new SplitMixRandom(seed, gamma);
+    }
+
+    /**
+     * Returns the current state of the source, so that it can be set back later.
+     *
+     * @return the state of the source
+     */
+    long getState() {
+        return seed;
+    }
+
+    /**
+     * Sets the state of the source back to a state it had, so that it returns the same numbers again.
+     *
+     * @param state a state returned by {@link #getState()}
+     */
+    void setState(long state) {
+        seed = state;
+    }
+
+    /**
+     * Returns the gamma of the source, which is saved with its state.
+     *
+     * @return the step added to the state at each draw
+     */
+    long getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Returns a source of random numbers with the given state and gamma, as returned by {@link #getState()}
+     * and {@link #getGamma()}, so that a saved source returns the same numbers again.
+     *
+     * @param state the state of the source
+     * @param gamma the gamma of the source, an odd number
+     * @return the source
+     * @throws QwirkleException if the gamma is even, which no source has
+     */
+    static SplitMixRandom fromState(long state, long gamma) throws QwirkleException {
+        if ((gamma & 1) == 0) {
+            throw new QwirkleException("The gamma of a source of random numbers must be odd.");
+        }
+        return new SplitMixRandom(state, gamma);
+    }
+
+    /**
+     * Returns a new source of random numbers, independent of this one, and advances this source.
+     *
+     * @return the new source
+     */
+    public SplitMixRandom split() {
+        return new SplitMixRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Returns the next random number of the source.
+     *
+     * @return a random long
+     */
+    @Override
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Advances the state of the source by its gamma.
+     *
+     * @return the new state
+     */
+    private long nextSeed() {
+        seed += gamma;
+        return seed;
+    }
+
+    /**
+     * Mixes the bits of a state into a random number.
+     *
+     * @param z the state
+     * @return the random number
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Mixes the bits of a state into the gamma of a new source. The gamma is made odd, and its bits are
+     * made to change often enough so that the states of the new source are well spread.
+     *
+     * @param z the state
+     * @return the gamma
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        var transitions = Long.bitCount(z ^ (z >>> 1));
+        return transitions < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -15,6 +15,49 @@ import java.io.Serializable;
  * @param shape the shape of the tile
  */
 public record Tile(Color color, Shape shape) implements Serializable {
+    /**
+     * The number of different kinds of tiles, one for each color and shape combination.
+     */
+    public static final int KINDS = Color.values().length * Shape.values().length;
+    private static final int SHAPES = Shape.values().length;
+    private static final Tile[] TILES_BY_KIND = createTilesByKind();
+
+    /**
+     * Returns the shared tile instance of the given kind.
+     *
+     * @param kind the kind of the tile, between 0 (inclusive) and {@link #KINDS} (exclusive)
+     * @return the tile of the given kind
+     */
+    public static Tile ofKind(int kind) {
+        return TILES_BY_KIND[kind];
+    }
+
+    /**
+     * Returns the kind of the tile, a number between 0 (inclusive) and {@link #KINDS} (exclusive)
+     * that identifies its color and shape combination.
+     *
+     * @return the kind of the tile
+     */
+    public int kind() {
+        return color.ordinal() * SHAPES + shape.ordinal();
+    }
+
+    /**
+     * Creates one tile for each kind, ordered by kind.
+     *
+     * @return an array containing one tile of each kind
+     */
+    private static Tile[] createTilesByKind() {
+        var tiles = new Tile[KINDS];
+        for (Color color : Color.values()) {
+            for (Shape shape : Shape.values()) {
+                var tile = new Tile(color, shape);
+                tiles[tile.kind()] = tile;
+            }
+        }
+        return tiles;
+    }
+
     /**
      * Returns a string representation of the tile.
      * The string representation consists of the color followed by the shape symbol.
@@ -25,4 +68,4 @@ public record Tile(Color color, Shape shape) implements Serializable {
     public String toString() {
         return color().toString() + shape + "\033[m";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package g60904.qwirkle.model;
+
+/**
+ * The Zobrist class gives the random 64-bit keys whose exclusive or identifies a position of a game.
+ * <p>
+ * Each part of a position, such as a tile of a given kind on a given cell of the grid, has its own key, and the key
+ * of a position is the exclusive or of the keys of its parts. Adding or removing a part is then a single exclusive or,
+ * so the key of the position is kept up to date at each move instead of being computed again. The board has no edge,
+ * so the keys are not drawn in a table: each one is the SplitMix64 mix of a number that identifies the part,
+ * which spreads its bits as well as a random draw and always gives the same key for the same part.
+ */
+final class Zobrist {
+    private static final long GRID_TILE = 1L << 56;
+    private static final long HAND_TILE = 2L << 56;
+    private static final long BAG_COUNT = 3L << 56;
+    private static final long TO_PLAY = 4L << 56;
+    private static final long SCORE = 5L << 56;
+    private static final long STEP = 0x9e3779b97f4a7c15L;
+
+    /**
+     * This class only holds static methods.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a tile of the given kind placed on the given cell of the grid.
+     *
+     * @param cell the packed index of the cell
+     * @param kind the kind of the tile
+     * @return the key of the tile on the cell
+     */
+    static long gridTile(int cell, int kind) {
+        return key(GRID_TILE | (cell & 0xFFFFFFFFL) << 6 | kind);
+    }
+
+    /**
+     * Returns the key of a tile of the given kind in the hand of the given player. A hand can hold several tiles
+     * of the same kind, so each copy has its own key.
+     *
+     * @param player the index of the player
+     * @param kind   the kind of the tile
+     * @param copy   the number of tiles of the same kind already counted in the hand
+     * @return the key of the tile in the hand
+     */
+    static long handTile(int player, int kind, int copy) {
+        return key(HAND_TILE | (long) player << 16 | kind << 2 | copy);
+    }
+
+    /**
+     * Returns the key of the given number of tiles of the given kind left in the bag.
+     *
+     * @param kind  the kind of the tiles
+     * @param count the number of tiles of the kind left in the bag
+     * @return the key of the count of the kind
+     */
+    static long bagCount(int kind, int count) {
+        return key(BAG_COUNT | kind << 2 | count);
+    }
+
+    /**
+     * Returns the key of the given player being the one to play.
+     *
+     * @param player the index of the player
+     * @return the key of the player to play
+     */
+    static long toPlay(int player) {
+        return key(TO_PLAY | player);
+    }
+
+    /**
+     * Returns the key of the given score of the given player.
+     *
+     * @param player the index of the player
+     * @param score  the score of the player
+     * @return the key of the score of the player
+     */
+    static long score(int player, int score) {
+        return key(SCORE | (long) player << 32 | score & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Mixes the number of a part of a position into its key.
+     *
+     * @param part the number of the part
+     * @return the key of the part
+     */
+    private static long key(long part) {
+        return SplitMixRandom.mix64(part * STEP);
+    }
+}
@@ -2,8 +2,14 @@ package g60904.qwirkle.view;
 
 import g60904.qwirkle.model.Game;
 import g60904.qwirkle.model.GridView;
+import g60904.qwirkle.model.Move;
 import g60904.qwirkle.model.Tile;
+import g60904.qwirkle.model.TileAtPosition;
 
+import javax.swing.JFileChooser;
+import java.awt.GraphicsEnvironment;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -178,6 +184,59 @@ public class View {
         System.out.println();
         return answer.equals("y");
     }
+    /**
+     * Asks the player if they want to recover the game that was interrupted, from its journal.
+     *
+     * @return true if the player wants to recover the game, false otherwise
+     */
+    public static boolean playerWantToRecoverAGame() {
+        System.out.print("The last game was interrupted. Do you want to recover it ? (y/n) ");
+        String answer = clavier.nextLine();
+        answer = answer.toLowerCase();
+        while (!answer.equals("y") && !answer.equals("n")) {
+            System.out.print("Please enter 'y' or 'n' to answer the question : ");
+            answer = clavier.nextLine();
+            answer = answer.toLowerCase();
+        }
+        System.out.println();
+        return answer.equals("y");
+    }
+    /**
+     * Asks if a player is a bot, whose moves are chosen by the computer.
+     *
+     * @param playerName the name of the player
+     * @return true if the player is a bot, false if it is a human
+     */
+    public static boolean playerIsABot(String playerName) {
+        System.out.print("Is " + playerName + " played by the computer ? (y/n) ");
+        String answer = clavier.nextLine();
+        answer = answer.toLowerCase();
+        while (!answer.equals("y") && !answer.equals("n")) {
+            System.out.print("Please enter 'y' or 'n' to answer the question : ");
+            answer = clavier.nextLine();
+            answer = answer.toLowerCase();
+        }
+        System.out.println();
+        return answer.equals("y");
+    }
+    /**
+     * Displays the move played by a bot.
+     *
+     * @param playerName the name of the bot
+     * @param move       the move played, or null if the bot passed
+     */
+    public static void displayBotMove(String playerName, Move move) {
+        if (move == null) {
+            System.out.println(playerName + " passed.");
+            return;
+        }
+        var placements = new StringBuilder();
+        for (TileAtPosition placement : move.placements()) {
+            placements.append(" ").append(placement.tile()).append(" at (").append(placement.row())
+                    .append(", ").append(placement.col()).append(")");
+        }
+        System.out.println(playerName + " played" + placements + " for " + move.score() + " points.");
+    }
     /**
      * Asks the player if they want to save the current game.
      *
@@ -195,6 +254,57 @@ public class View {
         System.out.println();
         return answer.equals("y");
     }
+    /**
+     * Asks the player for the file where the game is saved, with a file dialog, or on the console
+     * when there is no display.
+     *
+     * @return the path of the file, or null if the player cancelled the dialog
+     */
+    public static Path askSaveFile() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return askPathOnConsole("Enter the path of the file where the game is saved : ");
+        }
+        var chooser = FileChooserHolder.CHOOSER;
+        return chooser.showSaveDialog(null) == JFileChooser.APPROVE_OPTION ? chooser.getSelectedFile().toPath() : null;
+    }
+    /**
+     * Asks the player for the file of a saved game, with a file dialog, or on the console
+     * when there is no display.
+     *
+     * @return the path of the file, or null if the player cancelled the dialog
+     */
+    public static Path askLoadFile() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return askPathOnConsole("Enter the path of the saved game : ");
+        }
+        var chooser = FileChooserHolder.CHOOSER;
+        return chooser.showOpenDialog(null) == JFileChooser.APPROVE_OPTION ? chooser.getSelectedFile().toPath() : null;
+    }
+    /**
+     * Asks the player for the path of a file on the console.
+     *
+     * @param question the question asked
+     * @return the path entered, or null if the player entered nothing
+     */
+    private static Path askPathOnConsole(String question) {
+        while (true) {
+            System.out.print(question);
+            String answer = clavier.nextLine().strip();
+            System.out.println();
+            try {
+                return answer.isEmpty() ? null : Path.of(answer);
+            } catch (InvalidPathException e) {
+                displayError("This path is not valid. Please try again.");
+            }
+        }
+    }
+    /**
+     * Holds the file dialog, which is only created the first time a file is asked for,
+     * so that Swing is not loaded by a game that is never saved nor restored.
+     */
+    private static final class FileChooserHolder {
+        private static final JFileChooser CHOOSER = new JFileChooser();
+    }
     /**
      * Reads a command from the console input.
      *
@@ -0,0 +1,34 @@
+package g60904.qwirkle.app;
+
+import g60904.qwirkle.model.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppTest {
+
+    @Test
+    @Tag("command")
+    @DisplayName("Command m - a move that extends the board by more than one cell is not refused by the position check")
+    void positionIsInGridTAP_moveBeyondTheLimits() {
+        var grid = new Grid();
+        grid.firstAdd(Direction.RIGHT, new Tile(Color.RED, Shape.CROSS));
+        var command = "m 45 46 0 45 47 1 45 48 2".split(" ");
+        assertTrue(App.positionIsInGridTAP(command));
+        assertTrue(grid.add(
+                new TileAtPosition(45, 46, new Tile(Color.RED, Shape.DIAMOND)),
+                new TileAtPosition(45, 47, new Tile(Color.RED, Shape.PLUS)),
+                new TileAtPosition(45, 48, new Tile(Color.RED, Shape.ROUND))) > 0);
+        assertEquals(new Tile(Color.RED, Shape.ROUND), grid.get(45, 48));
+    }
+
+    @Test
+    @Tag("command")
+    @DisplayName("Command m - a position that the grid cannot address is refused")
+    void positionIsInGridTAP_outsideTheGrid() {
+        assertFalse(App.positionIsInGridTAP("m 45 100000 0".split(" ")));
+        assertFalse(App.positionIsInGridTAP("m -100000 45 0".split(" ")));
+    }
+}
@@ -0,0 +1,143 @@
+package g60904.qwirkle.bench;
+
+import g60904.qwirkle.model.Direction;
+import g60904.qwirkle.model.Game;
+import g60904.qwirkle.model.Grid;
+import g60904.qwirkle.model.Tile;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the latency of {@link Game#isOver()} at the start, the middle and the end of a game,
+ * next to the scan it replaces: every tile of every hand tried on every cell of the former 91x91 board.
+ * The game is played by always placing the first tile of the hand that fits on an anchor.
+ * <p>
+ * This is not a unit test, it is run by hand from the test classpath:
+ * {@code java -cp target/classes:target/test-classes g60904.qwirkle.bench.IsOverBenchmark}
+ */
+public class IsOverBenchmark {
+    private static final int FORMER_GRID_SIZE = 91;
+    private static final int WARMUP = 2_000;
+    private static final int MEASURED = 20_000;
+    private static final int SCAN_MEASURED = 200;
+    private static int sink;
+
+    /**
+     * Plays a game with four players and prints the latency of both checks at each phase.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        var game = new Game(List.of("Ann", "Bob", "Cid", "Dee"));
+        var tileCount = tilesOutOfTheGrid(game);
+        game.first(Direction.RIGHT, 0);
+        report("start", game);
+        var middleReported = false;
+        var turnsWithoutPlay = 0;
+        while (!game.isOver() && turnsWithoutPlay < 4) {
+            if (playFirstFittingTile(game)) {
+                turnsWithoutPlay = 0;
+            } else {
+                game.pass();
+                turnsWithoutPlay++;
+            }
+            if (!middleReported && halfOfTheTilesArePlaced(game, tileCount)) {
+                report("middle", game);
+                middleReported = true;
+            }
+        }
+        report("end", game);
+    }
+
+    /**
+     * Plays the first tile of the current hand that fits on an anchor of the grid.
+     *
+     * @param game the game
+     * @return {@code true} if a tile was played, {@code false} if none fits
+     */
+    private static boolean playFirstFittingTile(Game game) {
+        var grid = game.getGrid();
+        var hand = game.getCurrentPlayerHand();
+        for (int i = 0; i < grid.getAnchorCount(); i++) {
+            for (int index = 0; index < hand.size(); index++) {
+                if ((grid.getAnchorKinds(i) >>> hand.get(index).kind() & 1) != 0) {
+                    game.play(grid.getAnchorRow(i), grid.getAnchorCol(i), index);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the tiles of the game that are not on the grid: the tiles of the bag and of the hands.
+     *
+     * @param game the game
+     * @return the number of tiles in the bag and in the hands
+     */
+    private static int tilesOutOfTheGrid(Game game) {
+        return game.getBagSize() + Arrays.stream(game.getPlayersHandSize()).sum();
+    }
+
+    /**
+     * Checks if half of the tiles of the game are on the grid.
+     *
+     * @param game      the game
+     * @param tileCount the number of tiles of the game, counted before the first tile was placed
+     * @return {@code true} once half of the tiles are on the grid
+     */
+    private static boolean halfOfTheTilesArePlaced(Game game, int tileCount) {
+        return 2 * (tileCount - tilesOutOfTheGrid(game)) >= tileCount;
+    }
+
+    /**
+     * Prints the latency of {@link Game#isOver()} and of the former scan on the current state of the game.
+     *
+     * @param phase the name of the phase of the game
+     * @param game  the game
+     */
+    private static void report(String phase, Game game) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += game.isOver() ? 1 : 0;
+        }
+        var start = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            sink += game.isOver() ? 1 : 0;
+        }
+        var isOverNanos = (System.nanoTime() - start) / (double) MEASURED;
+        for (int i = 0; i < SCAN_MEASURED / 10; i++) {
+            sink += formerScan(game) ? 1 : 0;
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < SCAN_MEASURED; i++) {
+            sink += formerScan(game) ? 1 : 0;
+        }
+        var scanNanos = (System.nanoTime() - start) / (double) SCAN_MEASURED;
+        System.out.printf("%-6s anchors=%3d  isOver=%10.1f ns  former scan=%12.1f ns  (x%.0f)%n",
+                phase, game.getGrid().getAnchorCount(), isOverNanos, scanNanos, scanNanos / isOverNanos);
+    }
+
+    /**
+     * The check made by the former {@link Game#isOver()} on every turn: every tile of every hand tried on every
+     * cell of the 91x91 board.
+     *
+     * @param game the game
+     * @return {@code true} if a tile of a hand can be placed somewhere
+     */
+    private static boolean formerScan(Game game) {
+        Grid grid = game.getGrid();
+        for (int player = 0; player < game.getPlayersName().length; player++) {
+            for (Tile tile : game.getPlayerHand(player)) {
+                for (int row = 0; row < FORMER_GRID_SIZE; row++) {
+                    for (int col = 0; col < FORMER_GRID_SIZE; col++) {
+                        if (grid.canAdd(row, col, tile)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,90 @@
+package g60904.qwirkle.bench;
+
+import g60904.qwirkle.model.Direction;
+import g60904.qwirkle.model.Grid;
+import g60904.qwirkle.model.Move;
+import g60904.qwirkle.model.MoveGenerator;
+import g60904.qwirkle.model.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the time taken by the {@link MoveGenerator} to list the moves of a hand of six tiles,
+ * on grids of a growing number of tiles. The grids are built by playing random generated moves.
+ * <p>
+ * This is not a unit test, it is run by hand from the test classpath:
+ * {@code java -cp target/classes:target/test-classes g60904.qwirkle.bench.MoveGeneratorBenchmark}
+ */
+public class MoveGeneratorBenchmark {
+    private static final int HAND_SIZE = 6;
+    private static final int HANDS = 2_000;
+    private static int sink;
+
+    /**
+     * Builds a grid turn after turn and prints the time to generate the moves of random hands at some turns.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        var random = new Random(60904);
+        var grid = new Grid();
+        var generator = new MoveGenerator(grid);
+        grid.firstAdd(Direction.RIGHT, Tile.ofKind(random.nextInt(Tile.KINDS)));
+        var placed = 1;
+        for (int turn = 1; turn <= 60; turn++) {
+            var moves = generator.generate(randomHand(random));
+            if (!moves.isEmpty()) {
+                var move = moves.get(random.nextInt(moves.size()));
+                grid.add(move.placements());
+                placed += move.size();
+            }
+            if (turn % 10 == 0) {
+                report(turn, placed, grid, generator, random);
+            }
+        }
+    }
+
+    /**
+     * Prints the average time to generate the moves of random hands on the current grid.
+     *
+     * @param turn      the number of the turn
+     * @param placed    the number of tiles on the grid
+     * @param grid      the grid
+     * @param generator the move generator of the grid
+     * @param random    the source of the hands
+     */
+    private static void report(int turn, int placed, Grid grid, MoveGenerator generator, Random random) {
+        var hands = new ArrayList<List<Tile>>();
+        for (int i = 0; i < HANDS; i++) {
+            hands.add(randomHand(random));
+        }
+        for (List<Tile> hand : hands) {
+            sink += generator.generate(hand).size();
+        }
+        var moves = 0;
+        var start = System.nanoTime();
+        for (List<Tile> hand : hands) {
+            List<Move> generated = generator.generate(hand);
+            moves += generated.size();
+        }
+        var micros = (System.nanoTime() - start) / 1_000.0 / HANDS;
+        System.out.printf("turn %2d  tiles=%3d  anchors=%3d  moves/hand=%6.1f  %8.1f us/hand%n",
+                turn, placed, grid.getAnchorCount(), moves / (double) HANDS, micros);
+    }
+
+    /**
+     * Draws a hand of random tiles.
+     *
+     * @param random the source of the tiles
+     * @return the hand
+     */
+    private static List<Tile> randomHand(Random random) {
+        var hand = new ArrayList<Tile>();
+        for (int i = 0; i < HAND_SIZE; i++) {
+            hand.add(Tile.ofKind(random.nextInt(Tile.KINDS)));
+        }
+        return hand;
+    }
+}
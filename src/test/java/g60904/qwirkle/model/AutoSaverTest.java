@@ -0,0 +1,71 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static g60904.qwirkle.model.NRI.QwirkleTestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutoSaverTest {
+
+    @Test
+    @Tag("save")
+    @DisplayName("AutoSave - the last game submitted is in the file, and no temporary file is left")
+    void autoSave_lastGameWritten(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("game.autosave");
+        var game = new Game(List.of("a", "b", "c"), 60904);
+        try (var saver = new AutoSaver(file)) {
+            for (int turn = 0; turn < 50; turn++) {
+                playTurn(game);
+                saver.submit(game);
+            }
+            saver.flush();
+            assertEquals(50, saver.getWrittenCount() + saver.getDroppedCount());
+            assertTrue(saver.getWrittenCount() >= 1);
+            var loaded = Game.load(file);
+            assertEquals(game.getZobristKey(true, true), loaded.getZobristKey(true, true));
+            assertArrayEquals(game.getPlayersScore(), loaded.getPlayersScore());
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("AutoSave - a game changed after it was submitted is saved as it was submitted")
+    void autoSave_snapshot(@TempDir Path directory) {
+        var file = directory.resolve("game.autosave");
+        var game = new Game(List.of("a", "b"), 3);
+        playTurn(game);
+        var key = game.getZobristKey(true, true);
+        try (var saver = new AutoSaver(file)) {
+            saver.submit(game);
+            playTurn(game);
+            playTurn(game);
+        }
+        assertEquals(key, Game.load(file).getZobristKey(true, true));
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("AutoSave - an error of the writer is thrown once, and nothing can be submitted after closing")
+    void autoSave_errors(@TempDir Path directory) {
+        var game = new Game(List.of("a", "b"), 3);
+        var saver = new AutoSaver(directory.resolve("no/such/dir/game.autosave"));
+        assertThrows(QwirkleException.class, () -> {
+            saver.submit(game);
+            saver.flush();
+        });
+        saver.flush();
+        saver.close();
+        assertThrows(QwirkleException.class, () -> saver.submit(game));
+    }
+}
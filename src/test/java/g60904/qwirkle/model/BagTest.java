@@ -0,0 +1,91 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BagTest {
+    private static final int FULL_BAG = Color.values().length * Shape.values().length * 3;
+
+    @Test
+    @Tag("bag")
+    @DisplayName("Bag - drawing from a bag leaves the other bags full")
+    void bags_areIndependent() {
+        var first = new Bag();
+        var second = new Bag();
+        first.getRandomTiles(10);
+        assertEquals(FULL_BAG - 10, first.size());
+        assertEquals(FULL_BAG, second.size());
+    }
+
+    @Test
+    @Tag("bag")
+    @DisplayName("Bag - emptying a bag draws three tiles of each color and shape, then nothing")
+    void bag_emptied_threeTilesOfEachKind() {
+        var bag = new Bag();
+        var drawn = new int[Tile.KINDS];
+        for (int i = 0; i < FULL_BAG; i += 5) {
+            for (Tile tile : bag.getRandomTiles(Math.min(5, FULL_BAG - i))) {
+                drawn[tile.kind()]++;
+            }
+        }
+        for (int kind = 0; kind < Tile.KINDS; kind++) {
+            assertEquals(3, drawn[kind]);
+        }
+        assertEquals(0, bag.size());
+        assertArrayEquals(new Tile[2], bag.getRandomTiles(2));
+    }
+
+    @Test
+    @Tag("bag")
+    @DisplayName("Bag - games played at the same time on several threads each keep all the tiles of their own bag")
+    void games_inParallel_eachDrawFromTheirOwnBag() throws InterruptedException, ExecutionException {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> tilesUsedByAGame()));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(FULL_BAG, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Plays a game of two players, who always play their first legal move, until neither of them can play.
+     *
+     * @return the number of tiles placed on the grid, in the hands or left in the bag
+     */
+    private int tilesUsedByAGame() {
+        var game = new Game(List.of("a", "b"));
+        game.pass();
+        game.pass();
+        var placed = 0;
+        var passes = 0;
+        while (passes < 2) {
+            var moves = game.getCurrentPlayerMoves();
+            if (moves.isEmpty()) {
+                passes++;
+                game.pass();
+            } else {
+                passes = 0;
+                placed += moves.get(0).size();
+                game.play(moves.get(0));
+            }
+        }
+        var hands = game.getCurrentPlayerHand().size();
+        game.pass();
+        return placed + hands + game.getCurrentPlayerHand().size() + game.getBagSize();
+    }
+}
@@ -0,0 +1,130 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndgameSolverTest {
+
+    /**
+     * Plays a game between greedy bots until the bag is empty and the hands hold at most the given number of tiles.
+     *
+     * @param players  the names of the players
+     * @param seed     the seed of the game
+     * @param maxTiles the largest number of tiles left in all the hands
+     * @return the game, or null if it ended before or got stuck with tiles left in the bag
+     */
+    private Game endgame(List<String> players, long seed, int maxTiles) {
+        var game = new Game(players, seed);
+        for (int i = 0; i < players.size(); i++) {
+            game.setStrategy(i, new GreedyStrategy());
+        }
+        while (game.getBagSize() > 0 || Arrays.stream(game.getPlayersHandSize()).sum() > maxTiles) {
+            if (game.isOver() || game.getTurnCount() > 300) {
+                return null;
+            }
+            game.playBotTurn();
+        }
+        return game.isOver() ? null : game;
+    }
+
+    /**
+     * Computes the value of the endgame by trying every line to its end, without any pruning.
+     *
+     * @param game   the game, played and undone
+     * @param player the player solved for
+     * @return the best score of the player minus the best score of the others that the player is sure to reach
+     */
+    private int minimax(Game game, int player) {
+        if (game.isOver()) {
+            return valueFor(game, player);
+        }
+        var moves = game.getCurrentPlayerMoves();
+        if (moves.isEmpty()) {
+            game.pass();
+            var value = minimax(game, player);
+            game.undo();
+            return value;
+        }
+        var maximizing = game.getCurrentPlayer() == player;
+        var best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (Move move : moves) {
+            game.play(move);
+            var value = minimax(game, player);
+            game.undo();
+            best = maximizing ? Math.max(best, value) : Math.min(best, value);
+        }
+        return best;
+    }
+
+    @Test
+    @Tag("bot")
+    @DisplayName("Endgame - the solver finds the exact value of small endgames, for two and three players")
+    void solver_exactValue() {
+        var solved = 0;
+        for (long seed = 0; seed < 12; seed++) {
+            var players = seed % 2 == 0 ? List.of("a", "b") : List.of("a", "b", "c");
+            var game = endgame(players, seed, 6);
+            if (game == null) {
+                continue;
+            }
+            var key = game.getZobristKey(true, true);
+            var result = new EndgameSolver(Duration.ofSeconds(20), new GreedyStrategy()).solve(game);
+            assertEquals(key, game.getZobristKey(true, true));
+            assertTrue(result.exact());
+            assertEquals(minimax(game.fork(), game.getCurrentPlayer()), result.value());
+            var solvedPlayer = game.getCurrentPlayer();
+            for (Move move : result.line()) {
+                if (move == null) {
+                    game.pass();
+                } else {
+                    game.play(move);
+                }
+            }
+            if (game.isOver()) {
+                assertEquals(result.value(), valueFor(game, solvedPlayer));
+            }
+            solved++;
+        }
+        assertTrue(solved > 3);
+    }
+
+    /**
+     * Returns the score of a player minus the best score of the others.
+     *
+     * @param game   the game
+     * @param player the index of the player
+     * @return the difference of scores
+     */
+    private int valueFor(Game game, int player) {
+        var scores = game.getPlayersScore();
+        var best = Integer.MIN_VALUE;
+        for (int i = 0; i < scores.length; i++) {
+            if (i != player) {
+                best = Math.max(best, scores[i]);
+            }
+        }
+        return scores[player] - best;
+    }
+
+    @Test
+    @Tag("bot")
+    @DisplayName("Endgame - when its time is over, the solver still gives a legal move")
+    void solver_outOfTime() {
+        var game = endgame(List.of("a", "b", "c", "d"), 3, 100);
+        assertNotNull(game);
+        var result = new EndgameSolver(Duration.ofNanos(1), new GreedyStrategy()).solve(game);
+        assertFalse(result.exact());
+        if (result.move() != null) {
+            assertEquals(result.move().score(), game.getGrid().validate(result.move().placements()));
+        }
+        assertThrows(QwirkleException.class,
+                () -> new EndgameSolver(Duration.ofSeconds(1), new GreedyStrategy()).solve(new Game(List.of("a"))));
+    }
+}
@@ -0,0 +1,59 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpectimaxStrategyTest {
+
+    @Test
+    @Tag("bot")
+    @DisplayName("Expectimax - the pruning searches fewer nodes but chooses the same legal move")
+    void expectimax_pruningKeepsTheMove() {
+        var game = new Game(List.of("a", "b"), 60904);
+        game.setStrategy(0, new GreedyStrategy());
+        game.setStrategy(1, new GreedyStrategy());
+        var searchedNodes = 0L;
+        var prunedNodes = 0L;
+        for (int turn = 0; turn < 20 && !game.isOver(); turn++) {
+            var pruning = new ExpectimaxStrategy(2, true);
+            var full = new ExpectimaxStrategy(2, false);
+            var key = game.getZobristKey(true, true);
+            var move = pruning.chooseMove(game);
+            var fullMove = full.chooseMove(game);
+            assertEquals(key, game.getZobristKey(true, true));
+            assertEquals(fullMove == null ? 0 : fullMove.key(), move == null ? 0 : move.key());
+            assertEquals(0, full.getLastPrunedDraws());
+            assertTrue(pruning.getLastNodes() <= full.getLastNodes());
+            if (move != null && !game.getGrid().isEmpty()) {
+                assertEquals(move.score(), game.getGrid().validate(move.placements()));
+            }
+            searchedNodes += full.getLastNodes();
+            prunedNodes += pruning.getLastNodes();
+            game.playBotTurn();
+        }
+        assertTrue(prunedNodes < searchedNodes);
+    }
+
+    @Test
+    @Tag("bot")
+    @DisplayName("Expectimax - the nodes of a search are counted, and the number of draws cannot be negative")
+    void expectimax_nodesAndSettings() {
+        var game = new Game(List.of("a", "b", "c"), 4);
+        var expectimax = new ExpectimaxStrategy();
+        game.setStrategy(0, expectimax);
+        game.setStrategy(1, new GreedyStrategy());
+        game.setStrategy(2, new GreedyStrategy());
+        for (int turn = 0; turn < 9; turn++) {
+            game.playBotTurn();
+        }
+        assertNotNull(expectimax.chooseMove(game));
+        assertTrue(expectimax.getLastNodes() > 0);
+        assertTrue(expectimax.getLastNodesPerSecond() > 0);
+        assertThrows(QwirkleException.class, () -> new ExpectimaxStrategy(-1, true));
+    }
+}
@@ -0,0 +1,84 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static g60904.qwirkle.model.NRI.QwirkleTestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameArchiveTest {
+
+    @Test
+    @Tag("save")
+    @DisplayName("Archive - each game is read back by its number, in any order, and after the archive is opened again")
+    void archive_randomAccess(@TempDir Path directory) {
+        var file = directory.resolve("games.archive");
+        var keys = new ArrayList<Long>();
+        try (var archive = GameArchive.open(file)) {
+            for (int seed = 0; seed < 20; seed++) {
+                var game = playedGame(seed, seed * 3);
+                assertEquals(seed, archive.append(game));
+                keys.add(game.getZobristKey(true, true));
+                assertEquals(keys.get(seed / 2), archive.get(seed / 2).getZobristKey(true, true));
+            }
+        }
+        try (var archive = GameArchive.open(file)) {
+            assertEquals(20, archive.getGameCount());
+            for (int number = 19; number >= 0; number--) {
+                assertEquals(keys.get(number), archive.get(number).getZobristKey(true, true));
+            }
+            var scanned = new ArrayList<Long>();
+            archive.forEach(game -> scanned.add(game.getZobristKey(true, true)));
+            assertEquals(keys, scanned);
+            var results = new ArrayList<GameArchive.Result>();
+            archive.forEachResult(results::add);
+            assertEquals(20, results.size());
+            for (int number = 0; number < 20; number++) {
+                var game = archive.get(number);
+                assertEquals(number, results.get(number).number());
+                assertArrayEquals(game.getPlayersName(), results.get(number).names());
+                assertArrayEquals(game.getPlayersScore(), results.get(number).scores());
+            }
+            assertThrows(QwirkleException.class, () -> archive.get(20));
+            assertThrows(QwirkleException.class, () -> archive.get(-1));
+        }
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Archive - a game whose addition was stopped by a crash is dropped when the archive is opened")
+    void archive_tornAppend(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("games.archive");
+        var index = directory.resolve("games.archive.index");
+        try (var archive = GameArchive.open(file)) {
+            archive.append(playedGame(1, 10));
+            archive.append(playedGame(2, 10));
+        }
+        var dataSize = Files.size(file);
+        var indexSize = Files.size(index);
+        try (var archive = GameArchive.open(file)) {
+            archive.append(playedGame(3, 10));
+        }
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(dataSize + 10);
+        }
+        try (var archive = GameArchive.open(file)) {
+            assertEquals(2, archive.getGameCount());
+            assertEquals(dataSize, Files.size(file));
+            assertEquals(indexSize, Files.size(index));
+            assertEquals(playedGame(2, 10).getZobristKey(true, true), archive.get(1).getZobristKey(true, true));
+            assertEquals(2, archive.append(playedGame(4, 10)));
+        }
+        Files.writeString(directory.resolve("text"), "not an archive");
+        assertThrows(QwirkleException.class, () -> GameArchive.open(directory.resolve("text")));
+    }
+}
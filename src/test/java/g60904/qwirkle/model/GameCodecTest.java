@@ -0,0 +1,200 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static g60904.qwirkle.model.NRI.QwirkleTestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCodecTest {
+
+    /**
+     * Plays the given number of turns of greedy bots, the second player staying a human.
+     *
+     * @param turns the number of turns to play
+     * @return the game played
+     */
+    private Game playedGame(int turns) {
+        var game = new Game(List.of("Ann", "Bob", "Zoé"), 60904);
+        game.setStrategy(0, new GreedyStrategy());
+        game.setStrategy(2, new GreedyStrategy());
+        for (int turn = 0; turn < turns; turn++) {
+            playTurn(game);
+        }
+        return game;
+    }
+
+    /**
+     * Writes a game in the binary format.
+     *
+     * @param game the game to write
+     * @return the bytes written
+     */
+    private byte[] encode(Game game) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        GameCodec.write(game, Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a game from the binary format.
+     *
+     * @param bytes the bytes to read
+     * @return the game read
+     */
+    private Game decode(byte[] bytes) throws IOException {
+        return GameCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Codec - a game read back is the game written, and draws the same tiles")
+    void codec_roundTrip() throws IOException {
+        var game = playedGame(25);
+        var read = decode(encode(game));
+        assertArrayEquals(game.getPlayersName(), read.getPlayersName());
+        assertArrayEquals(game.getPlayersScore(), read.getPlayersScore());
+        assertEquals(game.getCurrentPlayerName(), read.getCurrentPlayerName());
+        assertEquals(game.getCurrentPlayerHand(), read.getCurrentPlayerHand());
+        assertEquals(game.getBagSize(), read.getBagSize());
+        assertEquals(game.getSeed(), read.getSeed());
+        assertArrayEquals(game.getGrid().getActualLimits(), read.getGrid().getActualLimits());
+        assertEquals(game.getZobristKey(true, true), read.getZobristKey(true, true));
+        assertEquals(0, read.getTurnCount());
+        for (int turn = 0; turn < 10; turn++) {
+            assertEquals(game.isCurrentPlayerBot(), read.isCurrentPlayerBot());
+            var move = new GreedyStrategy().chooseMove(game);
+            var moveRead = new GreedyStrategy().chooseMove(read);
+            assertEquals(move == null ? 0 : move.key(), moveRead == null ? 0 : moveRead.key());
+            if (move == null) {
+                game.pass();
+                read.pass();
+            } else {
+                game.play(move);
+                read.play(moveRead);
+            }
+            assertEquals(game.getZobristKey(true, true), read.getZobristKey(true, true));
+        }
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Codec - a game forked with a split source of random numbers draws the same tiles once read back")
+    void codec_roundTripForkedGame() throws IOException {
+        var fork = playedGame(10).fork(new SplitMixRandom(7).split());
+        var read = decode(encode(fork));
+        for (int turn = 0; turn < 20; turn++) {
+            playTurn(fork);
+            playTurn(read);
+            assertEquals(fork.getZobristKey(true, true), read.getZobristKey(true, true));
+        }
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Codec - each bot is read back played by the same strategy with the same settings")
+    void codec_strategies() throws IOException {
+        var game = new Game(List.of("a", "b", "c", "d"), 5);
+        game.setStrategy(0, new MctsStrategy(Duration.ofMillis(150), 3, 5));
+        game.setStrategy(1, new ExpectimaxStrategy(2, false));
+        game.setStrategy(2, new EndgameSolver(Duration.ofSeconds(2), new ExpectimaxStrategy()));
+        var bytes = encode(game);
+        assertArrayEquals(bytes, encode(decode(bytes)));
+        var players = GameCodec.decodePlayers(ByteBuffer.wrap(bytes));
+        assertInstanceOf(MctsStrategy.class, players[0].getStrategy());
+        assertInstanceOf(ExpectimaxStrategy.class, players[1].getStrategy());
+        assertInstanceOf(EndgameSolver.class, players[2].getStrategy());
+        assertNull(players[3].getStrategy());
+        game.setStrategy(3, played -> null);
+        assertThrows(QwirkleException.class, () -> encode(game));
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Codec - a new game and a game read back twice are written the same")
+    void codec_newGame() throws IOException {
+        var game = new Game(List.of("a", "b"), 1);
+        var bytes = encode(game);
+        var read = decode(bytes);
+        assertTrue(read.getGrid().isEmpty());
+        assertArrayEquals(bytes, encode(read));
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Codec - the binary format is more than ten times smaller than the serialized game")
+    void codec_smallerThanSerialization() throws IOException {
+        var game = playedGame(40);
+        var serialized = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(serialized)) {
+            out.writeObject(game);
+        }
+        var bytes = encode(game);
+        assertTrue(bytes.length * 10 < serialized.size(), bytes.length + " / " + serialized.size());
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Codec - a file that is not a saved game, of another version or cut short is refused")
+    void codec_corruptedFiles() throws IOException {
+        var bytes = encode(playedGame(10));
+        var wrongMagic = bytes.clone();
+        wrongMagic[0] = 'X';
+        assertThrows(QwirkleException.class, () -> decode(wrongMagic));
+        var wrongVersion = bytes.clone();
+        wrongVersion[Integer.BYTES] = GameCodec.VERSION + 1;
+        assertThrows(QwirkleException.class, () -> decode(wrongVersion));
+        for (int length = 0; length < bytes.length; length += 7) {
+            var cut = Arrays.copyOf(bytes, length);
+            assertThrows(QwirkleException.class, () -> decode(cut));
+        }
+        var longer = Arrays.copyOf(bytes, bytes.length + 1);
+        assertThrows(QwirkleException.class, () -> decode(longer));
+        assertThrows(QwirkleException.class, () -> GameCodec.decode(ByteBuffer.allocate(0)));
+    }
+
+    /**
+     * Writes a grid holding a line of three red tiles, placed from the origin to the right.
+     *
+     * @return the bytes of the grid, ready to be read
+     */
+    private ByteBuffer redLine() {
+        var grid = new Grid();
+        grid.firstAdd(Direction.RIGHT, new Tile(Color.RED, Shape.CROSS), new Tile(Color.RED, Shape.DIAMOND),
+                new Tile(Color.RED, Shape.PLUS));
+        var buffer = ByteBuffer.allocate(1024);
+        grid.writeTo(buffer);
+        return buffer.flip();
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Codec - a grid that no game can reach is refused: a duplicate in a line, a lone tile, wrong limits")
+    void codec_illegalGrids() {
+        var tiles = 5 * Integer.BYTES;
+        assertEquals(new Tile(Color.RED, Shape.PLUS), Grid.readFrom(redLine()).get(45, 47));
+        var duplicate = redLine();
+        duplicate.put(tiles + Integer.BYTES + 1 + Integer.BYTES, duplicate.get(tiles + Integer.BYTES));
+        assertThrows(QwirkleException.class, () -> Grid.readFrom(duplicate));
+        var lone = redLine();
+        lone.putInt(tiles + 2 * (Integer.BYTES + 1), ChunkedBoard.pack(0, 3));
+        assertThrows(QwirkleException.class, () -> Grid.readFrom(lone));
+        var notAtOrigin = redLine();
+        notAtOrigin.putInt(tiles, ChunkedBoard.pack(1, 0));
+        assertThrows(QwirkleException.class, () -> Grid.readFrom(notAtOrigin));
+        var narrowLimits = redLine();
+        narrowLimits.putInt(3 * Integer.BYTES, 46);
+        assertThrows(QwirkleException.class, () -> Grid.readFrom(narrowLimits));
+    }
+}
@@ -0,0 +1,155 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameTest {
+
+    /**
+     * Plays a game where each player plays their first legal move, and writes down the hands and the scores.
+     *
+     * @param game the game to play
+     * @return the hand and the score of the current player before each turn
+     */
+    private List<String> playFirstMoves(Game game) {
+        var turns = new ArrayList<String>();
+        game.pass();
+        game.pass();
+        for (int turn = 0; turn < 60; turn++) {
+            turns.add(game.getCurrentPlayerHand() + " " + game.getCurrentPlayerScore());
+            var moves = game.getCurrentPlayerMoves();
+            if (moves.isEmpty()) {
+                game.pass();
+            } else {
+                game.play(moves.get(0));
+            }
+        }
+        return turns;
+    }
+
+    @Test
+    @Tag("seed")
+    @DisplayName("Seed - two games with the same seed and the same moves draw the same tiles")
+    void sameSeed_sameGame() {
+        var game = new Game(List.of("a", "b"), 60904);
+        var replay = new Game(List.of("a", "b"), game.getSeed());
+        assertEquals(playFirstMoves(game), playFirstMoves(replay));
+        assertNotEquals(playFirstMoves(new Game(List.of("a", "b"), 1)),
+                playFirstMoves(new Game(List.of("a", "b"), 2)));
+    }
+
+    @Test
+    @Tag("fork")
+    @DisplayName("Fork - a forked game plays like the game without changing it")
+    void fork_independentCopy() {
+        var game = new Game(List.of("a", "b"), 60904);
+        playFirstMoves(game);
+        var hand = game.getCurrentPlayerHand().toString();
+        var scores = game.getPlayersScore();
+        var bagSize = game.getBagSize();
+        var fork = game.fork();
+        var forkTurns = playFirstMoves(fork);
+        assertEquals(hand, game.getCurrentPlayerHand().toString());
+        assertArrayEquals(scores, game.getPlayersScore());
+        assertEquals(bagSize, game.getBagSize());
+        assertEquals(forkTurns, playFirstMoves(game));
+    }
+
+    /**
+     * Describes everything a turn can change in a game.
+     *
+     * @param game the game
+     * @return the current player, the scores, the hand, the bag, the tiles of the grid and the key of the position
+     */
+    private String stateOf(Game game) {
+        var grid = game.getGrid();
+        var state = new StringBuilder(game.getCurrentPlayerName() + " " + Arrays.toString(game.getPlayersScore())
+                + " " + game.getCurrentPlayerHand() + " " + game.getBagSize() + " "
+                + Arrays.toString(grid.getActualLimits()) + " " + grid.getAnchorCount()
+                + " " + game.getZobristKey(true, true));
+        for (int row = grid.getActualLimits()[2]; row <= grid.getActualLimits()[0]; row++) {
+            for (int col = grid.getActualLimits()[1]; col <= grid.getActualLimits()[3]; col++) {
+                state.append(grid.get(row, col) == null ? "." : grid.get(row, col).kind());
+            }
+        }
+        return state.toString();
+    }
+
+    @Test
+    @Tag("undo")
+    @DisplayName("Undo - undoing every turn of a game goes back through the same states, and the same moves draw the same tiles")
+    void undo_wholeGame() {
+        var random = new Random(60904);
+        var game = new Game(List.of("a", "b", "c"), 60904);
+        var states = new ArrayList<String>();
+        var moves = new ArrayList<Move>();
+        while (!game.isOver() && moves.size() < 200) {
+            states.add(stateOf(game));
+            var legal = game.getCurrentPlayerMoves();
+            var move = legal.isEmpty() ? null : legal.get(random.nextInt(legal.size()));
+            moves.add(move);
+            if (move == null) {
+                game.pass();
+            } else {
+                game.play(move);
+            }
+        }
+        var end = stateOf(game);
+        assertEquals(moves.size(), game.getTurnCount());
+        for (int turn = moves.size() - 1; turn >= 0; turn--) {
+            game.undo();
+            assertEquals(states.get(turn), stateOf(game));
+        }
+        assertThrows(QwirkleException.class, game::undo);
+        for (Move move : moves) {
+            if (move == null) {
+                game.pass();
+            } else {
+                game.play(move);
+            }
+        }
+        assertEquals(end, stateOf(game));
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Save - a game saved to a file or a stream is loaded back, without any dialog")
+    void save_loadPathAndStream(@TempDir Path directory) {
+        var game = new Game(List.of("a", "b"), 60904);
+        playFirstMoves(game);
+        var file = directory.resolve("game.qwk");
+        game.save(file);
+        var fromFile = Game.load(file);
+        assertEquals(game.getZobristKey(true, true), fromFile.getZobristKey(true, true));
+        var bytes = new ByteArrayOutputStream();
+        fromFile.save(bytes);
+        var fromStream = Game.load(new ByteArrayInputStream(bytes.toByteArray()));
+        assertArrayEquals(game.getPlayersScore(), fromStream.getPlayersScore());
+        assertEquals(game.getZobristKey(true, true), fromStream.getZobristKey(true, true));
+        new Game(List.of("c"), 1).save(file);
+        assertArrayEquals(new String[]{"c"}, Game.load(file).getPlayersName());
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Save - a missing file or a file that is not a game cannot be loaded")
+    void save_loadWrongFiles(@TempDir Path directory) throws Exception {
+        assertThrows(QwirkleException.class, () -> Game.load(directory.resolve("missing.qwk")));
+        var text = Files.writeString(directory.resolve("text.qwk"), "not a game");
+        assertThrows(QwirkleException.class, () -> Game.load(text));
+        assertThrows(QwirkleException.class, () -> new Game(List.of("a")).save(directory.resolve("no/such/dir")));
+    }
+}
@@ -0,0 +1,55 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreedyStrategyTest {
+
+    @Test
+    @Tag("bot")
+    @DisplayName("Greedy - the move chosen scores as much as the best legal move")
+    void greedy_playsTheBestMove() {
+        var game = new Game(List.of("a", "b"), 60904);
+        game.pass();
+        game.pass();
+        var greedy = new GreedyStrategy();
+        for (int turn = 0; turn < 30; turn++) {
+            var best = 0;
+            for (Move move : game.getCurrentPlayerMoves()) {
+                best = Math.max(best, move.score());
+            }
+            var chosen = greedy.chooseMove(game);
+            assertEquals(best, chosen == null ? 0 : chosen.score());
+            if (chosen == null) {
+                game.pass();
+            } else {
+                game.play(chosen);
+            }
+        }
+    }
+
+    @Test
+    @Tag("bot")
+    @DisplayName("Bots - a game between a human and two bots goes on while the bots play their own turns")
+    void bots_playTheirTurns() {
+        var game = new Game(List.of("human", "bot 1", "bot 2"), 60904);
+        game.setStrategy(1, new GreedyStrategy());
+        game.setStrategy(2, new GreedyStrategy());
+        assertFalse(game.isCurrentPlayerBot());
+        assertThrows(QwirkleException.class, game::playBotTurn);
+        game.pass();
+        assertTrue(game.isCurrentPlayerBot());
+        var move = game.playBotTurn();
+        assertNotNull(move);
+        assertEquals(move.score(), game.getPlayersScore()[1]);
+        assertEquals("bot 2", game.getCurrentPlayerName());
+        game.playBotTurn();
+        assertEquals("human", game.getCurrentPlayerName());
+        assertEquals(3, game.getTurnCount());
+    }
+}
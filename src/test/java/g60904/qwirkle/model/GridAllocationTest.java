@@ -0,0 +1,109 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GridAllocationTest {
+    private static final int GAMES = 2_000;
+    private static final int MAX_TILES_PER_MOVE = 3;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Plays random games on two grids kept identical: every move is first tried on the probe grid,
+     * where refused moves throw, and only the accepted ones are played on the measured grid.
+     * The moves are built before the measure, since the arrays and records of the moves are allocated
+     * by the caller. The measured grid only allocates when its storage grows (a new chunk of the board,
+     * or a bigger table of tiles, of anchors or of the journal), so the moves that do not grow it must not
+     * allocate a single byte.
+     */
+    @Test
+    @Tag("allocation")
+    @DisplayName("Placing and scoring tiles allocates nothing once the storage of the grid has grown")
+    void addAllocatesNothing() {
+        assumeAllocationCounting();
+        var random = new Random(60904);
+        var moves = 0;
+        var growingMoves = 0;
+        var allocatingMoves = 0;
+        for (int game = 0; game < GAMES; game++) {
+            var probe = new Grid();
+            var measured = new Grid();
+            var first = Tile.ofKind(random.nextInt(Tile.KINDS));
+            probe.firstAdd(Direction.RIGHT, first);
+            measured.firstAdd(Direction.RIGHT, first);
+            for (int attempt = 0; attempt < 300; attempt++) {
+                var anchor = random.nextInt(probe.getAnchorCount());
+                var row = probe.getAnchorRow(anchor);
+                var col = probe.getAnchorCol(anchor);
+                var d = Direction.values()[random.nextInt(4)];
+                var length = 1 + random.nextInt(MAX_TILES_PER_MOVE);
+                var tiles = new Tile[length];
+                var taps = new TileAtPosition[length];
+                for (int i = 0; i < length; i++) {
+                    tiles[i] = randomTileSharingATrait(random, probe.getAnchorKinds(anchor));
+                    taps[i] = new TileAtPosition(row + i * d.getDeltaRow(), col + i * d.getDeltaCol(), tiles[i]);
+                }
+                var shape = random.nextInt(3);
+                try {
+                    play(probe, shape, row, col, d, tiles, taps);
+                } catch (QwirkleException e) {
+                    continue;
+                }
+                var storage = measured.getStorageSize();
+                var before = THREADS.getCurrentThreadAllocatedBytes();
+                play(measured, shape, row, col, d, tiles, taps);
+                var allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+                moves++;
+                if (measured.getStorageSize() != storage) {
+                    growingMoves++;
+                } else if (allocated > 0) {
+                    allocatingMoves++;
+                }
+            }
+        }
+        assertTrue(moves > 100_000, "only " + moves + " moves were played");
+        assertTrue(growingMoves < moves / 10, growingMoves + " of " + moves + " moves grew the storage");
+        assertEquals(0, allocatingMoves, allocatingMoves + " of " + (moves - growingMoves)
+                + " moves allocated without growing the storage");
+    }
+
+    /**
+     * Plays a move with one of the three ways of placing tiles.
+     */
+    private int play(Grid grid, int shape, int row, int col, Direction d, Tile[] tiles, TileAtPosition[] taps) {
+        return switch (shape) {
+            case 0 -> grid.add(row, col, tiles[0]);
+            case 1 -> grid.add(row, col, d, tiles);
+            default -> grid.add(taps);
+        };
+    }
+
+    /**
+     * Returns a tile accepted by an anchor if there is one, so that most moves are accepted.
+     */
+    private Tile randomTileSharingATrait(Random random, long kinds) {
+        if (kinds == 0 || random.nextInt(8) == 0) {
+            return Tile.ofKind(random.nextInt(Tile.KINDS));
+        }
+        var kind = random.nextInt(Tile.KINDS);
+        while ((kinds >>> kind & 1) == 0) {
+            kind = (kind + 1) % Tile.KINDS;
+        }
+        return Tile.ofKind(kind);
+    }
+
+    /**
+     * Checks that the virtual machine counts the bytes allocated by each thread.
+     */
+    private void assumeAllocationCounting() {
+        org.junit.jupiter.api.Assumptions.assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+}
@@ -1063,6 +1063,28 @@ class GridTest {
         assertEquals(4, myGrid.add(new TileAtPosition(46,43, new Tile(Color.BLUE, Shape.CROSS))));
     }
 
+    @Test
+    @Tag("points")
+    @DisplayName("Points - add - Add tiles in a direction - QWIRKLE completed away from the first tile")
+    void points_add_addTilesInDirection_qwirkleFromTheMiddle() {
+        addSomeTiles_FirstAdd_SameColor();
+        assertEquals(14, myGrid.add(45, 46, Direction.RIGHT,
+                new Tile(Color.BLUE, Shape.ROUND), new Tile(Color.BLUE, Shape.SQUARE),
+                new Tile(Color.BLUE, Shape.TRIANGLE), new Tile(Color.BLUE, Shape.STAR)));
+    }
+
+    @Test
+    @Tag("points")
+    @DisplayName("Points - add - Add tiles at positions - QWIRKLE counted once")
+    void points_add_addTilesAtPos_qwirkleCountedOnce() {
+        addSomeTiles_FirstAdd_SameColor();
+        assertEquals(14, myGrid.add(
+                new TileAtPosition(45, 46, new Tile(Color.BLUE, Shape.TRIANGLE)),
+                new TileAtPosition(45, 42, new Tile(Color.BLUE, Shape.STAR)),
+                new TileAtPosition(45, 41, new Tile(Color.BLUE, Shape.ROUND)),
+                new TileAtPosition(45, 40, new Tile(Color.BLUE, Shape.SQUARE))));
+    }
+
     @Test
     @Tag("defense")
     @DisplayName("Points - firstAdd - Add 7 tiles - QWIRKLE")
@@ -1087,4 +1109,183 @@ class GridTest {
         }
         assertEquals(14, myGrid.firstAdd(Direction.UP, listOfTilesToAdd));
     }
-}
\ No newline at end of file
+
+    // Tests for anchors
+    @Test
+    @Tag("anchors")
+    @DisplayName("Anchors - firstAdd - every empty cell around the line is an anchor")
+    void anchors_firstAdd() {
+        addSomeTiles_FirstAdd_SameColor();
+        assertEquals(8, myGrid.getAnchorCount());
+        for (int i = 0; i < myGrid.getAnchorCount(); i++) {
+            assertNull(myGrid.get(myGrid.getAnchorRow(i), myGrid.getAnchorCol(i)));
+        }
+        assertTrue(myGrid.canAdd(45, 42, new Tile(Color.BLUE, Shape.STAR)));
+        assertFalse(myGrid.canAdd(45, 42, new Tile(Color.BLUE, Shape.CROSS)));
+        assertFalse(myGrid.canAdd(45, 42, new Tile(Color.RED, Shape.STAR)));
+        assertTrue(myGrid.canAdd(44, 44, new Tile(Color.RED, Shape.CROSS)));
+        assertFalse(myGrid.canAdd(43, 44, new Tile(Color.RED, Shape.CROSS)));
+    }
+
+    @Test
+    @Tag("anchors")
+    @DisplayName("Anchors - refused move - the anchors are the same as before the move")
+    void anchors_refusedMove() {
+        addSomeTiles_FirstAdd_SameColor();
+        var kindsBefore = 0L;
+        for (int i = 0; i < myGrid.getAnchorCount(); i++) {
+            kindsBefore += myGrid.getAnchorKinds(i) * (myGrid.getAnchorRow(i) * 100L + myGrid.getAnchorCol(i));
+        }
+        assertThrows(QwirkleException.class, () -> myGrid.add(45, 46, Direction.RIGHT,
+                new Tile(Color.BLUE, Shape.STAR), new Tile(Color.BLUE, Shape.STAR)));
+        assertEquals(8, myGrid.getAnchorCount());
+        var kindsAfter = 0L;
+        for (int i = 0; i < myGrid.getAnchorCount(); i++) {
+            kindsAfter += myGrid.getAnchorKinds(i) * (myGrid.getAnchorRow(i) * 100L + myGrid.getAnchorCol(i));
+        }
+        assertEquals(kindsBefore, kindsAfter);
+    }
+
+    @Test
+    @Tag("anchors")
+    @DisplayName("Anchors - a cell between two lines that cannot be joined accepts no tile")
+    void anchors_cellBetweenTwoLines() {
+        addSomeTiles_FirstAdd_SameColor();
+        myGrid.add(44, 43, Direction.UP, new Tile(Color.RED, Shape.DIAMOND), new Tile(Color.GREEN, Shape.DIAMOND));
+        myGrid.add(44, 45, Direction.UP, new Tile(Color.RED, Shape.PLUS), new Tile(Color.YELLOW, Shape.PLUS));
+        for (Color color : Color.values()) {
+            for (Shape shape : Shape.values()) {
+                assertFalse(myGrid.canAdd(43, 44, new Tile(color, shape)));
+            }
+        }
+    }
+
+    @Test
+    @Tag("rules")
+    @DisplayName("Rules - add - Add tiles at positions - two tiles touching only each other are refused")
+    void rules_addTilesAtPos_notAttached() {
+        addSomeTiles_FirstAdd_SameColor();
+        assertThrows(QwirkleException.class, () -> myGrid.add(
+                new TileAtPosition(43, 45, new Tile(Color.BLUE, Shape.STAR)),
+                new TileAtPosition(43, 46, new Tile(Color.BLUE, Shape.ROUND))));
+        assertNull(myGrid.get(43, 45));
+    }
+
+    @Test
+    @Tag("fork")
+    @DisplayName("Fork - tiles added to a forked grid are not added to the grid")
+    void fork_addOnTheFork() {
+        addSomeTiles_FirstAdd_SameColor();
+        var anchors = myGrid.getAnchorCount();
+        var fork = myGrid.fork();
+        var redPlus = new Tile(Color.RED, Shape.PLUS);
+        assertEquals(2, fork.add(44, 45, redPlus));
+        assertNull(myGrid.get(44, 45));
+        assertEquals(anchors, myGrid.getAnchorCount());
+        assertEquals(2, myGrid.validate(44, 45, redPlus));
+        assertEquals(MoveError.POSITION_OCCUPIED.code(), fork.validate(44, 45, redPlus));
+        assertEquals(myGrid.get(45, 44), fork.get(45, 44));
+    }
+
+    @Test
+    @Tag("undo")
+    @DisplayName("Undo - undoing the moves takes back their tiles, limits and anchors, back to the empty grid")
+    void undo_movesAndLimits() {
+        addSomeTiles_FirstAdd_SameColor();
+        var limits = myGrid.getActualLimits().clone();
+        var anchors = myGrid.getAnchorCount();
+        myGrid.add(44, 45, Direction.UP, new Tile(Color.RED, Shape.PLUS), new Tile(Color.GREEN, Shape.PLUS));
+        assertEquals(2, myGrid.getJournalSize());
+        myGrid.undo();
+        assertNull(myGrid.get(44, 45));
+        assertNull(myGrid.get(43, 45));
+        assertArrayEquals(limits, myGrid.getActualLimits());
+        assertEquals(anchors, myGrid.getAnchorCount());
+        myGrid.undo();
+        assertTrue(myGrid.isEmpty());
+        assertEquals(0, myGrid.getAnchorCount());
+        assertArrayEquals(new int[]{46, 44, 44, 46}, myGrid.getActualLimits());
+        assertThrows(QwirkleException.class, () -> myGrid.undo());
+        assertEquals(3, myGrid.firstAdd(Direction.DOWN, new Tile(Color.RED, Shape.PLUS),
+                new Tile(Color.RED, Shape.STAR), new Tile(Color.RED, Shape.ROUND)));
+    }
+
+    @Test
+    @Tag("zobrist")
+    @DisplayName("Zobrist - the key only depends on the tiles of the grid, not on the order of the moves")
+    void zobrist_sameTilesSameKey() {
+        addSomeTiles_FirstAdd_SameColor();
+        var other = new Grid();
+        other.firstAdd(Direction.LEFT, new Tile(Color.BLUE, Shape.DIAMOND), new Tile(Color.BLUE, Shape.CROSS));
+        assertNotEquals(myGrid.getZobristKey(), other.getZobristKey());
+        other.add(45, 43, new Tile(Color.BLUE, Shape.PLUS));
+        assertNotEquals(myGrid.getZobristKey(), other.getZobristKey());
+        other.undo();
+        other.undo();
+        other.firstAdd(Direction.RIGHT, new Tile(Color.BLUE, Shape.PLUS));
+        other.add(45, 44, Direction.LEFT, new Tile(Color.BLUE, Shape.CROSS), new Tile(Color.BLUE, Shape.DIAMOND));
+        assertEquals(myGrid.getZobristKey(), other.getZobristKey());
+        var key = myGrid.getZobristKey();
+        myGrid.validate(44, 45, new Tile(Color.RED, Shape.PLUS));
+        assertEquals(key, myGrid.getZobristKey());
+        myGrid.add(44, 45, new Tile(Color.RED, Shape.PLUS));
+        assertNotEquals(key, myGrid.getZobristKey());
+        myGrid.undo();
+        assertEquals(key, myGrid.getZobristKey());
+        assertEquals(key, myGrid.fork().getZobristKey());
+    }
+
+    // Tests for tryAdd and validate
+    @Test
+    @Tag("tryAdd")
+    @DisplayName("tryAdd - refused moves return the code of their reason and leave the grid unchanged")
+    void tryAdd_refused() {
+        assertEquals(MoveError.FIRST_MOVE_REQUIRED.code(), myGrid.tryAdd(45, 45, new Tile(Color.BLUE, Shape.PLUS)));
+        addSomeTiles_FirstAdd_SameColor();
+        assertEquals(MoveError.GRID_NOT_EMPTY.code(), myGrid.tryFirstAdd(Direction.UP, new Tile(Color.RED, Shape.PLUS)));
+        assertEquals(MoveError.POSITION_OCCUPIED.code(), myGrid.tryAdd(45, 45, new Tile(Color.BLUE, Shape.STAR)));
+        assertEquals(MoveError.BREAKS_RULES.code(), myGrid.tryAdd(45, 46, Direction.RIGHT,
+                new Tile(Color.BLUE, Shape.STAR), new Tile(Color.RED, Shape.STAR)));
+        assertEquals(MoveError.BREAKS_RULES, MoveError.of(myGrid.tryAdd(
+                new TileAtPosition(45, 46, new Tile(Color.BLUE, Shape.STAR)),
+                new TileAtPosition(45, 48, new Tile(Color.BLUE, Shape.ROUND)))));
+        assertNull(myGrid.get(45, 46));
+        assertArrayEquals(new int[]{46, 42, 44, 46}, myGrid.getActualLimits());
+    }
+
+    @Test
+    @Tag("tryAdd")
+    @DisplayName("add - the message of a move refused because of a position tells which position")
+    void add_refusedPositionInMessage() {
+        addSomeTiles_FirstAdd_SameColor();
+        var occupied = assertThrows(QwirkleException.class, () -> myGrid.add(
+                new TileAtPosition(45, 46, new Tile(Color.BLUE, Shape.STAR)),
+                new TileAtPosition(45, 44, new Tile(Color.BLUE, Shape.ROUND))));
+        assertEquals("The position (45, 44) already contains a tile", occupied.getMessage());
+        var twice = assertThrows(QwirkleException.class, () -> myGrid.add(
+                new TileAtPosition(45, 46, new Tile(Color.BLUE, Shape.STAR)),
+                new TileAtPosition(45, 46, new Tile(Color.BLUE, Shape.ROUND))));
+        assertEquals("The position (45, 46) already contains a tile", twice.getMessage());
+        var outside = assertThrows(QwirkleException.class,
+                () -> myGrid.add(45, 100000, new Tile(Color.BLUE, Shape.STAR)));
+        assertEquals("The position (45, 100000) is outside the grid", outside.getMessage());
+        assertNull(myGrid.get(45, 46));
+    }
+
+    @Test
+    @Tag("tryAdd")
+    @DisplayName("validate - returns the score of the move without placing it")
+    void validate_scoreWithoutPlacing() {
+        addSomeTiles_FirstAdd_SameColor();
+        var limits = myGrid.getActualLimits().clone();
+        assertEquals(4, myGrid.validate(45, 46, new Tile(Color.BLUE, Shape.STAR)));
+        assertEquals(5, myGrid.validate(45, 46, Direction.RIGHT,
+                new Tile(Color.BLUE, Shape.STAR), new Tile(Color.BLUE, Shape.ROUND)));
+        assertEquals(2, myGrid.validate(new TileAtPosition(44, 45, new Tile(Color.RED, Shape.PLUS))));
+        assertNull(myGrid.get(45, 46));
+        assertNull(myGrid.get(44, 45));
+        assertArrayEquals(limits, myGrid.getActualLimits());
+        assertEquals(4, myGrid.tryAdd(45, 46, new Tile(Color.BLUE, Shape.STAR)));
+        assertNotNull(myGrid.get(45, 46));
+    }
+}
@@ -0,0 +1,98 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineMaskTest {
+
+    /**
+     * The line check used by the Grid before the line masks: the tiles of the line
+     * must all be different and share either their color or their shape.
+     */
+    private boolean respectRulesWithSets(List<Tile> tiles) {
+        if (new HashSet<>(tiles).size() != tiles.size()) {
+            return false;
+        }
+        if (tiles.size() == 1) {
+            return true;
+        }
+        var shapes = tiles.stream().map(Tile::shape).collect(Collectors.toSet());
+        var colors = tiles.stream().map(Tile::color).collect(Collectors.toSet());
+        return shapes.size() == 1 ^ colors.size() == 1;
+    }
+
+    private long lineMaskOf(List<Tile> tiles) {
+        var line = LineMask.EMPTY;
+        for (Tile tile : tiles) {
+            line = LineMask.merge(line, LineMask.of(tile.kind()));
+        }
+        return line;
+    }
+
+    @Test
+    @Tag("lineMask")
+    @DisplayName("Line masks agree with the set based check on every line of up to three tiles")
+    void sameAsSets_upToThreeTiles() {
+        for (int first = 0; first < Tile.KINDS; first++) {
+            for (int second = 0; second < Tile.KINDS; second++) {
+                var pair = List.of(Tile.ofKind(first), Tile.ofKind(second));
+                assertEquals(respectRulesWithSets(pair), LineMask.isLegal(lineMaskOf(pair)), pair.toString());
+                for (int third = 0; third < Tile.KINDS; third++) {
+                    var triple = List.of(Tile.ofKind(first), Tile.ofKind(second), Tile.ofKind(third));
+                    assertEquals(respectRulesWithSets(triple), LineMask.isLegal(lineMaskOf(triple)), triple.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    @Tag("lineMask")
+    @DisplayName("Line masks agree with the set based check on random long lines")
+    void sameAsSets_randomLongLines() {
+        var random = new Random(60904);
+        for (int i = 0; i < 200_000; i++) {
+            var tiles = new ArrayList<Tile>();
+            var sameColor = random.nextBoolean();
+            var fixed = random.nextInt(7);
+            var length = 4 + random.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                // mostly lines that share a trait, so that legal lines are not too rare
+                var other = random.nextInt(7);
+                var kind = random.nextInt(10) == 0 ? random.nextInt(Tile.KINDS)
+                        : sameColor ? fixed * 7 + other : other * 7 + fixed;
+                tiles.add(Tile.ofKind(kind));
+            }
+            assertEquals(respectRulesWithSets(tiles), LineMask.isLegal(lineMaskOf(tiles)), tiles.toString());
+        }
+    }
+
+    @Test
+    @Tag("lineMask")
+    @DisplayName("Line masks keep the colors, shapes and length of a line")
+    void masksOfALine() {
+        var line = lineMaskOf(List.of(new Tile(Color.RED, Shape.CROSS), new Tile(Color.RED, Shape.STAR)));
+        assertEquals(1 << Color.RED.ordinal(), LineMask.colors(line));
+        assertEquals(1 << Shape.CROSS.ordinal() | 1 << Shape.STAR.ordinal(), LineMask.shapes(line));
+        assertEquals(2, LineMask.length(line));
+        assertTrue(LineMask.isLegal(line));
+    }
+
+    @Test
+    @Tag("lineMask")
+    @DisplayName("A line containing twice the same tile never respects the rules")
+    void duplicateIsNeverLegal() {
+        var tile = LineMask.of(new Tile(Color.BLUE, Shape.ROUND).kind());
+        assertFalse(LineMask.isLegal(LineMask.merge(tile, tile)));
+        assertFalse(LineMask.isLegal(LineMask.merge(LineMask.merge(tile, tile),
+                LineMask.of(new Tile(Color.BLUE, Shape.STAR).kind()))));
+    }
+}
@@ -0,0 +1,65 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MctsStrategyTest {
+
+    @Test
+    @Tag("bot")
+    @DisplayName("MCTS - the move chosen is legal, the game searched is left as it was, and the rollouts are counted")
+    void mcts_choosesALegalMove() {
+        var game = new Game(List.of("a", "b", "c"), 60904);
+        game.setStrategy(0, new GreedyStrategy());
+        game.setStrategy(1, new GreedyStrategy());
+        game.setStrategy(2, new GreedyStrategy());
+        for (int turn = 0; turn < 12; turn++) {
+            game.playBotTurn();
+        }
+        var mcts = new MctsStrategy(Duration.ofMillis(200), 2, 60904);
+        var hand = game.getCurrentPlayerHand().toString();
+        var key = game.getZobristKey(true, true);
+        var turns = game.getTurnCount();
+        var move = mcts.chooseMove(game);
+        assertEquals(hand, game.getCurrentPlayerHand().toString());
+        assertEquals(key, game.getZobristKey(true, true));
+        assertEquals(turns, game.getTurnCount());
+        assertNotNull(move);
+        assertTrue(mcts.getLastRollouts() > 2);
+        assertTrue(mcts.getLastRolloutsPerSecond() > 0);
+        assertEquals(move.score(), game.getGrid().validate(move.placements()));
+        game.play(move);
+    }
+
+    @Test
+    @Tag("bot")
+    @DisplayName("MCTS - the strategies share one pool of threads instead of each keeping its own")
+    void mcts_sharedPool() {
+        var game = new Game(List.of("a", "b"), 3);
+        game.first(Direction.RIGHT, 0);
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(new MctsStrategy(Duration.ofMillis(10), 2, i).chooseMove(game));
+        }
+        var workers = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread instanceof ForkJoinWorkerThread worker
+                        && worker.getPool() != ForkJoinPool.commonPool())
+                .count();
+        assertTrue(workers <= 2, workers + " threads of search are alive");
+    }
+
+    @Test
+    @Tag("bot")
+    @DisplayName("MCTS - a search needs some time and a thread")
+    void mcts_wrongSettings() {
+        assertThrows(QwirkleException.class, () -> new MctsStrategy(Duration.ZERO, 1, 0));
+        assertThrows(QwirkleException.class, () -> new MctsStrategy(Duration.ofMillis(10), 0, 0));
+    }
+}
@@ -0,0 +1,90 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGeneratorTest {
+
+    private String positionsOf(Move move) {
+        var positions = new StringBuilder();
+        for (TileAtPosition placement : move.placements()) {
+            positions.append(placement.row()).append(',').append(placement.col()).append(' ');
+        }
+        return positions.toString();
+    }
+
+    @Test
+    @Tag("moveGenerator")
+    @DisplayName("First moves - one move for each ordered set of tiles sharing a trait")
+    void firstMoves() {
+        var grid = new Grid();
+        var hand = List.of(new Tile(Color.BLUE, Shape.PLUS), new Tile(Color.BLUE, Shape.STAR),
+                new Tile(Color.RED, Shape.PLUS), new Tile(Color.BLUE, Shape.PLUS));
+        var moves = new MoveGenerator(grid).generate(hand);
+        // 3 single tiles, 2 ordered pairs of blue tiles and 2 ordered pairs of plus tiles
+        assertEquals(7, moves.size());
+        for (Move move : moves) {
+            assertEquals(move.size() == 1 ? 1 : 2, move.score());
+            assertNotEquals(3, move.handIndexes()[0]);
+        }
+    }
+
+    @Test
+    @Tag("moveGenerator")
+    @DisplayName("Moves - a move touching no tile is never generated")
+    void movesTouchTheGrid() {
+        var grid = new Grid();
+        grid.firstAdd(Direction.RIGHT, new Tile(Color.GREEN, Shape.ROUND));
+        var moves = new MoveGenerator(grid).generate(List.of(new Tile(Color.GREEN, Shape.STAR),
+                new Tile(Color.GREEN, Shape.CROSS)));
+        for (Move move : moves) {
+            var touches = false;
+            for (TileAtPosition placement : move.placements()) {
+                touches |= Math.abs(placement.row() - 45) + Math.abs(placement.col() - 45) == 1;
+            }
+            assertTrue(touches, positionsOf(move));
+        }
+        // 2 tiles on 4 anchors, then pairs in 2 orders: in each direction, 3 positions along the line
+        // of the tile (on one side, on the other, around it) and 4 positions across it
+        assertEquals(8 + 2 * 2 * (3 + 4), moves.size());
+    }
+
+    @Test
+    @Tag("moveGenerator")
+    @DisplayName("Moves - every move of random games is legal, has the score the grid gives it, and is unique")
+    void movesAreLegalAndScored() {
+        var random = new Random(60904);
+        for (int game = 0; game < 50; game++) {
+            var grid = new Grid();
+            var generator = new MoveGenerator(grid);
+            grid.firstAdd(Direction.RIGHT, Tile.ofKind(random.nextInt(Tile.KINDS)));
+            for (int turn = 0; turn < 40; turn++) {
+                var hand = new ArrayList<Tile>();
+                for (int i = 0; i < 6; i++) {
+                    hand.add(Tile.ofKind(random.nextInt(Tile.KINDS)));
+                }
+                var moves = generator.generate(hand);
+                var seen = new HashSet<String>();
+                for (Move move : moves) {
+                    assertEquals(move.score(), grid.validate(move.placements()), positionsOf(move));
+                    var key = new StringBuilder(positionsOf(move));
+                    for (int index : move.handIndexes()) {
+                        key.append(hand.get(index).kind()).append(' ');
+                    }
+                    assertTrue(seen.add(key.toString()), key.toString());
+                }
+                if (!moves.isEmpty()) {
+                    grid.add(moves.get(random.nextInt(moves.size())).placements());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static g60904.qwirkle.model.NRI.QwirkleTestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveJournalTest {
+
+    /**
+     * Checks that a recovered game is the same as the game played.
+     *
+     * @param expected the game played
+     * @param actual   the game recovered
+     */
+    private void assertSameGame(Game expected, Game actual) {
+        assertEquals(expected.getZobristKey(true, true), actual.getZobristKey(true, true));
+        assertArrayEquals(expected.getPlayersScore(), actual.getPlayersScore());
+        assertEquals(expected.getCurrentPlayerName(), actual.getCurrentPlayerName());
+        assertEquals(expected.getBagSize(), actual.getBagSize());
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Journal - a game whose journal was not closed is recovered as it was, and draws the same tiles")
+    void journal_recoverAfterCrash(@TempDir Path directory) {
+        var game = new Game(List.of("Ann", "Bob", "Zoé"), 60904);
+        var journal = MoveJournal.create(directory.resolve("game.journal"), game, 5);
+        for (int turn = 0; turn < 23; turn++) {
+            playTurn(game);
+        }
+        journal.flush();
+        var recovered = MoveJournal.recover(directory.resolve("game.journal"));
+        assertSameGame(game, recovered);
+        for (int turn = 0; turn < 5; turn++) {
+            playTurn(game);
+            playTurn(recovered);
+        }
+        assertSameGame(game, recovered);
+        journal.close();
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Journal - a journal cut short anywhere gives back a game of an earlier turn")
+    void journal_tornTail(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("game.journal");
+        var game = new Game(List.of("a", "b"), 1);
+        var keys = new ArrayList<Long>();
+        keys.add(game.getZobristKey(true, true));
+        try (var journal = MoveJournal.create(file, game, 4)) {
+            assertSame(journal, game.getMoveJournal());
+            for (int turn = 0; turn < 10; turn++) {
+                playTurn(game);
+                keys.add(game.getZobristKey(true, true));
+            }
+        }
+        var bytes = Files.readAllBytes(file);
+        var cut = directory.resolve("cut.journal");
+        var lastTurn = 0;
+        for (int length = 0; length <= bytes.length; length++) {
+            Files.write(cut, Arrays.copyOf(bytes, length));
+            try {
+                var turn = keys.indexOf(MoveJournal.recover(cut).getZobristKey(true, true));
+                assertTrue(turn >= lastTurn, "length " + length);
+                lastTurn = turn;
+            } catch (QwirkleException e) {
+                assertEquals(0, lastTurn, "length " + length);
+            }
+        }
+        assertEquals(keys.size() - 1, lastTurn);
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Journal - the turns undone, before or after the last snapshot, are undone in the game recovered")
+    void journal_undo(@TempDir Path directory) {
+        var game = new Game(List.of("a", "b"), 42);
+        try (var journal = MoveJournal.create(directory.resolve("game.journal"), game, 5)) {
+            for (int turn = 0; turn < 12; turn++) {
+                playTurn(game);
+            }
+            for (int turn = 0; turn < 4; turn++) {
+                game.undo();
+                journal.flush();
+                assertSameGame(game, MoveJournal.recover(directory.resolve("game.journal")));
+            }
+            playTurn(game);
+        }
+        assertSameGame(game, MoveJournal.recover(directory.resolve("game.journal")));
+    }
+
+    @Test
+    @Tag("save")
+    @DisplayName("Journal - an opened journal goes on writing the turns of the game it recovered")
+    void journal_openAndGoOn(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("game.journal");
+        var game = new Game(List.of("a", "b", "c"), 7);
+        var played = new Game(List.of("a", "b", "c"), 7);
+        try (var journal = MoveJournal.create(file, game)) {
+            assertSame(journal, game.getMoveJournal());
+            for (int turn = 0; turn < 7; turn++) {
+                playTurn(game);
+                playTurn(played);
+            }
+        }
+        // a move of three tiles cut short by a crash
+        Files.write(file, new byte[]{2, 3, 0, 0}, StandardOpenOption.APPEND);
+        try (var journal = MoveJournal.open(file)) {
+            assertSameGame(played, journal.getGame());
+            for (int turn = 0; turn < 5; turn++) {
+                playTurn(journal.getGame());
+                playTurn(played);
+            }
+        }
+        assertSameGame(played, MoveJournal.recover(file));
+        assertThrows(QwirkleException.class, () -> MoveJournal.create(file, game, 0));
+        assertThrows(QwirkleException.class, () -> MoveJournal.recover(directory.resolve("missing.journal")));
+    }
+}
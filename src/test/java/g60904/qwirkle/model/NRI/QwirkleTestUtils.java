@@ -1,7 +1,11 @@
 package g60904.qwirkle.model.NRI;
 
+import g60904.qwirkle.model.Game;
+import g60904.qwirkle.model.GreedyStrategy;
 import g60904.qwirkle.model.Tile;
 
+import java.util.List;
+
 import static g60904.qwirkle.model.Color.*;
 import static g60904.qwirkle.model.Shape.*;
 
@@ -24,4 +28,34 @@ public class QwirkleTestUtils {
     public static final Tile TILE_GREEN_CROSS = new Tile(GREEN, CROSS);
     public static final Tile TILE_GREEN_DIAMOND = new Tile(GREEN, DIAMOND);
     public static final Tile TILE_GREEN_PLUS = new Tile(GREEN, PLUS);
+
+    /**
+     * Plays the best move of the current player, or passes if they cannot play.
+     *
+     * @param game the game to play
+     */
+    public static void playTurn(Game game) {
+        var move = new GreedyStrategy().chooseMove(game);
+        if (move == null) {
+            game.pass();
+        } else {
+            game.play(move);
+        }
+    }
+
+    /**
+     * Plays the given number of turns of a new game of three players, each playing their best move,
+     * or fewer turns if the game is over before.
+     *
+     * @param seed  the seed of the game
+     * @param turns the number of turns to play
+     * @return the game played
+     */
+    public static Game playedGame(long seed, int turns) {
+        var game = new Game(List.of("a", "b", "c"), seed);
+        for (int turn = 0; turn < turns && !game.isOver(); turn++) {
+            playTurn(game);
+        }
+        return game;
+    }
 }
@@ -0,0 +1,29 @@
+package g60904.qwirkle.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplitMixRandomTest {
+
+    @Test
+    @Tag("random")
+    @DisplayName("Random - same numbers and same splits as SplittableRandom for the same seed")
+    void sameNumbersAsSplittableRandom() {
+        var random = new SplitMixRandom(60904);
+        var expected = new SplittableRandom(60904);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextLong(), random.nextLong());
+        }
+        var split = random.split();
+        var expectedSplit = expected.split();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expectedSplit.nextLong(), split.nextLong());
+            assertEquals(expected.nextLong(), random.nextLong());
+        }
+    }
+}